@@ -0,0 +1,135 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.IncidentApplication;
+import br.com.lucena.incident.dto.IncidentPageDTO;
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.dto.IncidentSearchResultDTO;
+import br.com.lucena.incident.model.IncidentStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Caminhos quentes do IncidentService contra o H2 em memória, com a tabela pré-carregada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IncidentServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    // -p metrics=true,false mede o custo da instrumentação (timers dos serviços e estatísticas do Hibernate)
+    @Param({"true"})
+    public boolean metrics;
+
+    // Com dedup, create mede a repetição agregada em memória; sem, o INSERT de cada chamada
+    @Param({"false"})
+    public boolean dedup;
+
+    private ConfigurableApplicationContext context;
+    private IncidentService incidentService;
+    private IncidentCache incidentCache;
+    private IncidentRequestDTO request;
+    // Linhas semeadas em IN_PROGRESS que o benchmark de status já levou para RESOLVED
+    private BitSet resolved;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.show-sql=false",
+                        "--incident.metrics.enabled=" + metrics,
+                        "--incident.dedup.enabled=" + dedup,
+                        "--logging.level.root=WARN");
+        seed(context.getBean(JdbcTemplate.class), rows);
+
+        incidentService = context.getBean(IncidentService.class);
+        incidentCache = context.getBean(IncidentCache.class);
+        incidentService.seedLatestIncidents();
+        incidentService.buildIndexes();
+        request = new IncidentRequestDTO("Benchmark incident", "Created by IncidentServiceBenchmark", null, null);
+        resolved = new BitSet(rows + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public IncidentResponseDTO create() {
+        return incidentService.createIncident(request);
+    }
+
+    @Benchmark
+    public IncidentResponseDTO getByIdCached() {
+        return incidentService.getIncidentById(randomId());
+    }
+
+    @Benchmark
+    public IncidentResponseDTO getByIdUncached() {
+        long id = randomId();
+        incidentCache.evict(id);
+        return incidentService.getIncidentById(id);
+    }
+
+    @Benchmark
+    public List<IncidentResponseDTO> getLatest20Incidents() {
+        return incidentService.getLatest20Incidents();
+    }
+
+    @Benchmark
+    public IncidentPageDTO findByStatus() {
+        return incidentService.findByStatus(IncidentStatus.OPEN, null, IncidentService.DEFAULT_PAGE_SIZE);
+    }
+
+    // Termo raro: o número aparece só em um incidente (nome e descrição)
+    @Benchmark
+    public IncidentSearchResultDTO searchRareTerm() {
+        return incidentService.search("number " + randomId(), 0, 20);
+    }
+
+    // Pior caso: os três termos aparecem em todos os incidentes e todos precisam ser ranqueados
+    @Benchmark
+    public IncidentSearchResultDTO searchCommonTerms() {
+        return incidentService.search("seeded benchmark incident", 0, 20);
+    }
+
+    // Alterna IN_PROGRESS <-> RESOLVED (as duas transições reversíveis da máquina de estados)
+    // nas linhas semeadas em IN_PROGRESS, para que toda chamada seja uma transição válida
+    @Benchmark
+    public IncidentResponseDTO updateStatus() {
+        long id = 4 * ThreadLocalRandom.current().nextLong(0, rows / 4) + 1;
+        boolean wasResolved = resolved.get((int) id);
+        resolved.flip((int) id);
+        return incidentService.updateStatus(id, wasResolved ? IncidentStatus.IN_PROGRESS : IncidentStatus.RESOLVED);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    // Carga direta em SQL: passar 1M de linhas pelo JPA dominaria o tempo do benchmark
+    static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("INSERT INTO incidents (id_incident, name, description, status, created_at, updated_at, version) " +
+                "SELECT X, CONCAT('Incident ', X), CONCAT('Seeded benchmark incident number ', X), " +
+                "CASE MOD(X, 4) WHEN 0 THEN 'OPEN' WHEN 1 THEN 'IN_PROGRESS' WHEN 2 THEN 'RESOLVED' ELSE 'CLOSED' END, " +
+                "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), " +
+                "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), 0 " +
+                "FROM SYSTEM_RANGE(1, ?)", rows);
+        // Sequência pooled: o valor lido é o topo do bloco, então reinicia com folga acima do maior id
+        jdbcTemplate.execute("ALTER SEQUENCE incidents_seq RESTART WITH " + (rows + 1000));
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Custo do mapeamento entidade -> DTO e da serialização JSON da resposta
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MappingBenchmark {
+
+    private IncidentService incidentService;
+    private ObjectMapper objectMapper;
+    private Incident incident;
+    private IncidentResponseDTO incidentDTO;
+
+    @Setup
+    public void setUp() {
+        incidentService = new IncidentService(null, null, null, null, null, null, null, null, null, null);
+        // Mesma configuração que o Spring Boot aplica ao ObjectMapper da aplicação
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDateTime now = LocalDateTime.now();
+        incident = new Incident();
+        incident.setIdIncident(42L);
+        incident.setName("Database connection pool exhausted");
+        incident.setDescription("All connections in the primary pool are in use and requests are timing out");
+        incident.setStatus(IncidentStatus.IN_PROGRESS);
+        incident.setCreatedAt(now);
+        incident.setUpdatedAt(now);
+        incidentDTO = incidentService.mapToDTO(incident);
+    }
+
+    @Benchmark
+    public IncidentResponseDTO mapToDTO() {
+        return incidentService.mapToDTO(incident);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(incidentDTO);
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.lucena.incident.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+// Com Spring AOT o conjunto de beans é decidido no build: as propriedades abaixo ligam ou desligam
+// beans e são lidas só pelo process-aot. No build os valores delas vão para um recurso do jar;
+// na subida com spring.aot.enabled=true, um valor diferente derruba a aplicação em vez de ser
+// ignorado em silêncio.
+public class AotBuildProperties implements BeanFactoryInitializationAotProcessor, EnvironmentPostProcessor, Ordered {
+
+    private static final List<String> NAMES = List.of(
+            "incident.routing.enabled",
+            "incident.db.admission.enabled",
+            "incident.metrics.enabled",
+            "spring.threads.virtual.enabled");
+
+    private static final String RESOURCE = "META-INF/incident-aot-build.properties";
+
+    // Build: roda dentro do process-aot, com o Environment que decidiu os beans
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        Environment environment = beanFactory.getBean(Environment.class);
+        Properties built = new Properties();
+        for (String name : NAMES) {
+            String value = environment.getProperty(name);
+            if (value != null) {
+                built.setProperty(name, value);
+            }
+        }
+        return (generationContext, code) -> {
+            StringWriter content = new StringWriter();
+            try {
+                built.store(content, "Properties seen by process-aot");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            generationContext.getGeneratedFiles().addResourceFile(RESOURCE, content.toString());
+        };
+    }
+
+    // Subida: depois do application.properties, dos perfis e das variáveis de ambiente
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        ClassPathResource resource = new ClassPathResource(RESOURCE, application.getClassLoader());
+        if (!resource.exists()) {
+            return;
+        }
+        Properties built = new Properties();
+        try (InputStream input = resource.getInputStream()) {
+            built.load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> changed = new ArrayList<>();
+        for (String name : NAMES) {
+            String runtime = environment.getProperty(name);
+            if (!Objects.equals(built.getProperty(name), runtime)) {
+                changed.add(name + "=" + runtime + " (built with " + built.getProperty(name) + ")");
+            }
+        }
+        if (!changed.isEmpty()) {
+            throw new IllegalStateException("Properties changed since the AOT build: " + String.join(", ", changed)
+                    + ". Rebuild with -Dspring-boot.aot.jvmArguments=\"-D<name>=<value> ...\""
+                    + " or start without -Dspring.aot.enabled=true");
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.lucena.incident.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "incident.db.admission.enabled", havingValue = "true")
+public class DatabaseAdmissionConfig {
+
+    @Bean
+    public static BeanPostProcessor admissionControlledDataSourcePostProcessor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConcurrent,
+            @Value("${incident.db.admission.timeout:PT2S}") Duration timeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // O dataSource do roteamento (LazyConnectionDataSourceProxy) junta primário e réplicas:
+                // ReadWriteRoutingConfig dá a cada pool o seu semáforo
+                if (bean instanceof DataSource dataSource && !(bean instanceof AdmissionControlledDataSource)
+                        && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new AdmissionControlledDataSource(dataSource, maxConcurrent, timeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
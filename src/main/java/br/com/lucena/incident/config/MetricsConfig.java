@@ -0,0 +1,39 @@
+package br.com.lucena.incident.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+// Instrumentação própria além da do Actuator (HTTP, repositórios, Hikari, Hibernate):
+// timers dos métodos @Timed dos serviços e comandos SQL por requisição.
+// incident.metrics.enabled=false desliga tudo isso e as estatísticas do Hibernate.
+@Configuration
+@ConditionalOnProperty(name = "incident.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfig {
+
+    // Infraestrutura: aplicado pelo mesmo auto-proxy do @Transactional, sem AspectJ
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor timedMethodsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DefaultPointcutAdvisor(TimedMethodInterceptor.POINTCUT,
+                new TimedMethodInterceptor(meterRegistry::getObject));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    @Bean
+    public StatementCountFilter statementCountFilter(MeterRegistry meterRegistry) {
+        return new StatementCountFilter(meterRegistry);
+    }
+}
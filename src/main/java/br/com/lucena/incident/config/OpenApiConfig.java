@@ -3,12 +3,22 @@ package br.com.lucena.incident.config;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Contact;
 import io.swagger.v3.oas.models.info.Info;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Configuration
 public class OpenApiConfig {
 
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+    // O swagger-ui registra os recursos estáticos na inicialização, com a versão do webjar
+    // descoberta pelo SpringDocUIConfiguration: esses ficam ansiosos, senão a página não é encontrada
+    private static final List<String> EAGER_PREFIXES = List.of(
+            "org.springdoc.webmvc.ui.", "org.springdoc.core.configuration.SpringDocUIConfiguration");
+
     @Bean
     public OpenAPI customOpenAPI() {
         return new OpenAPI()
@@ -20,4 +30,22 @@ public class OpenApiConfig {
                                 .name("Developer Team")
                                 .email("dev@example.com")));
     }
-} 
\ No newline at end of file
+
+    // A documentação não participa do atendimento: os beans do springdoc só são criados no
+    // primeiro acesso a /api-docs ou /swagger-ui, e não no caminho crítico da inicialização
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringdocBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String declaringClass = definition.getFactoryBeanName() != null
+                        ? beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName()
+                        : definition.getBeanClassName();
+                if (declaringClass != null && declaringClass.startsWith(SPRINGDOC_PACKAGE)
+                        && EAGER_PREFIXES.stream().noneMatch(declaringClass::startsWith)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+}
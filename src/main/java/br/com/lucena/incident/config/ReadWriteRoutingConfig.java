@@ -0,0 +1,97 @@
+package br.com.lucena.incident.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Roteamento de leitura/escrita (incident.routing.enabled=true): transações read-only vão às
+// réplicas de incident.routing.replica-urls e as demais ao primário de spring.datasource.
+// O LazyConnectionDataSourceProxy adia a conexão física até o primeiro comando, quando o
+// read-only da transação já foi aplicado à conexão, e só então escolhe o pool.
+@Configuration
+@ConditionalOnProperty(name = "incident.routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    public ReadYourWritesWindow readYourWritesWindow(
+            @Value("${incident.routing.read-your-writes:PT2S}") Duration window) {
+        return new ReadYourWritesWindow(window);
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(DataSourceProperties properties, Environment environment,
+                                   ReadYourWritesWindow readYourWritesWindow,
+                                   @Value("${incident.routing.replica-urls:}") List<String> replicaUrls,
+                                   @Value("${incident.routing.replica-username:${spring.datasource.username:}}") String username,
+                                   @Value("${incident.routing.replica-password:${spring.datasource.password:}}") String password,
+                                   @Value("${incident.routing.replica-pool-size:10}") int poolSize,
+                                   @Value("${incident.routing.replica-connection-timeout:PT1S}") Duration connectionTimeout,
+                                   @Value("${incident.routing.health-check-interval:PT5S}") Duration healthCheckInterval,
+                                   @Value("${incident.db.admission.enabled:false}") boolean admissionEnabled,
+                                   @Value("${incident.db.admission.timeout:PT2S}") Duration admissionTimeout) {
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalStateException("incident.routing.enabled=true needs at least one incident.routing.replica-urls");
+        }
+        // Mesmo pool que o Spring Boot montaria, com as propriedades spring.datasource.hikari.*
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(replicaUrls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            // Uma réplica fora do ar na inicialização é ejetada, não impede a subida
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        // Um semáforo por pool, do tamanho dele; DatabaseAdmissionConfig não envolve o dataSource roteado
+        Function<HikariDataSource, DataSource> admission = admissionEnabled
+                ? pool -> new AdmissionControlledDataSource(pool, pool.getMaximumPoolSize(), admissionTimeout)
+                : pool -> pool;
+        return new ReplicaPool(replicas, primary, readYourWritesWindow, healthCheckInterval, admission);
+    }
+
+    // Com open-in-view a sessão do Hibernate segura a mesma conexão por toda a requisição, e uma
+    // escrita depois de uma leitura usaria a conexão da réplica
+    @Bean
+    public DataSource dataSource(ReplicaPool replicaPool, ReadYourWritesWindow readYourWritesWindow,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("incident.routing.enabled=true requires spring.jpa.open-in-view=false");
+        }
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(readYourWritesWindow.tracking(replicaPool.primary()));
+        dataSource.setReadOnlyDataSource(replicaPool.asDataSource());
+        return dataSource;
+    }
+
+    @Bean
+    public MeterBinder replicaHealthMetrics(ReplicaPool replicaPool) {
+        return registry -> Gauge.builder("incident.db.replicas.healthy", replicaPool, pool -> pool.healthyReplicas().size())
+                .description("Read replicas currently receiving read-only transactions")
+                .register(registry);
+    }
+}
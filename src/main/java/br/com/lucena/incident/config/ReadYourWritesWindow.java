@@ -0,0 +1,176 @@
+package br.com.lucena.incident.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+// Depois de uma transação que gravou algo e confirmou, as leituras do mesmo cliente vão ao
+// primário durante a janela, o tempo para as réplicas alcançarem o commit; os demais clientes
+// seguem nas réplicas. O cliente é, nesta ordem, o usuário autenticado da requisição, a sessão
+// HTTP já existente ou o cookie incident-client, criado na primeira escrita de quem não tem
+// nenhum dos dois. O endereço remoto não serve: clientes atrás do mesmo NAT ou proxy dividiriam
+// a janela.
+public class ReadYourWritesWindow {
+
+    public static final String CLIENT_COOKIE = "incident-client";
+    private static final String CLIENT_ATTRIBUTE = ReadYourWritesWindow.class.getName() + ".client";
+    private static final int MAX_CLIENTS = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesWindow(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAX_CLIENTS)
+                .build();
+    }
+
+    public boolean isActive() {
+        String client = currentClient(false);
+        return client != null && recentWriters.getIfPresent(client) != null;
+    }
+
+    // Conexões do primário: um comando que alterou linhas abre a janela do cliente quando a transação
+    // confirma, ou na hora, fora de transação. Transações read-write que só leram não abrem.
+    public DataSource tracking(DataSource primary) {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return trackingWrites(super.getConnection());
+            }
+        };
+    }
+
+    private Connection trackingWrites(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    // createStatement, prepareStatement e prepareCall
+                    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return trackingWrites(statement, method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    private Statement trackingWrites(Statement statement, Class<?> type) {
+        return (Statement) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = invoke(statement, method, args);
+                    if (isWrite(statement, method, result)) {
+                        written();
+                    }
+                    return result;
+                });
+    }
+
+    // Só conta comando que alterou linhas: um UPDATE condicional que não casou nada não gravou.
+    // execute devolve false quando o comando produziu contagem de linhas em vez de um ResultSet.
+    private static boolean isWrite(Statement statement, Method method, Object result) throws SQLException {
+        return switch (method.getName()) {
+            case "executeUpdate", "executeLargeUpdate" -> ((Number) result).longValue() > 0;
+            case "executeBatch" -> Arrays.stream((int[]) result).anyMatch(count -> count != 0);
+            case "executeLargeBatch" -> Arrays.stream((long[]) result).anyMatch(count -> count != 0);
+            case "execute" -> Boolean.FALSE.equals(result) && statement.getUpdateCount() != 0;
+            default -> false;
+        };
+    }
+
+    private void written() {
+        String client = currentClient(true);
+        if (client == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentWriters.put(client, Boolean.TRUE);
+            return;
+        }
+        // Uma sincronização por transação, não por comando
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, client);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReadYourWritesWindow.this);
+            }
+        });
+    }
+
+    // Verdadeiro dentro de uma requisição HTTP; fora delas as leituras vão sempre ao primário
+    static boolean inRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes;
+    }
+
+    // Identidade do cliente da requisição em andamento; null fora de requisições ou, sem create,
+    // para quem ainda não tem identidade. Com create, atribui o cookie na resposta.
+    static String currentClient(boolean create) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getUserPrincipal() != null) {
+            return "user:" + request.getUserPrincipal().getName();
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            return "session:" + session.getId();
+        }
+        if (request.getAttribute(CLIENT_ATTRIBUTE) instanceof String assigned) {
+            return assigned;
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (CLIENT_COOKIE.equals(cookie.getName())) {
+                    return "cookie:" + cookie.getValue();
+                }
+            }
+        }
+        if (!create || attributes.getResponse() == null) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        Cookie cookie = new Cookie(CLIENT_COOKIE, id);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        attributes.getResponse().addCookie(cookie);
+        request.setAttribute(CLIENT_ATTRIBUTE, "cookie:" + id);
+        return "cookie:" + id;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package br.com.lucena.incident.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Réplicas de leitura: as transações read-only de requisições HTTP pegam a conexão aqui, em
+// rodízio entre as réplicas saudáveis. Uma réplica que falha ao entregar conexão é ejetada na
+// hora; a verificação periódica ejeta as que caíram sem ninguém notar e readmite as que voltaram.
+// Vão ao primário: leituras fora de requisições (carga dos índices na inicialização, tarefas
+// agendadas), que alimentam estruturas em memória e não podem ver dados atrasados; leituras
+// dentro da janela de read-your-writes do cliente; leituras marcadas com onPrimary (cargas do cache
+// e da janela de últimos incidentes, compartilhados entre clientes); e todas, se nenhuma réplica
+// estiver saudável.
+// Com incident.db.admission.enabled, cada pool tem o próprio semáforo, do tamanho dele: a espera
+// por permissão não ejeta a réplica. Fecha os pools do primário e das réplicas no encerramento.
+public class ReplicaPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final HikariDataSource primary;
+    private final DataSource primaryConnections;
+    private final ReadYourWritesWindow readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // admission: fonte de conexões de cada pool, o próprio pool ou ele atrás de um semáforo
+    public ReplicaPool(List<HikariDataSource> replicas, HikariDataSource primary, ReadYourWritesWindow readYourWrites,
+                       Duration healthCheckInterval, Function<HikariDataSource, DataSource> admission) {
+        this.replicas = replicas.stream().map(pool -> new Replica(pool, admission.apply(pool))).toList();
+        this.primary = primary;
+        this.primaryConnections = admission.apply(primary);
+        this.readYourWrites = readYourWrites;
+        long interval = healthCheckInterval.toMillis();
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Leituras que alimentam estado em memória compartilhado: uma réplica atrasada deixaria o dado
+    // velho lá para todos os clientes. Vale para a conexão pega durante a ação; sem roteamento,
+    // não muda nada.
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            } else {
+                PRIMARY_ONLY.set(previous);
+            }
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_ONLY.get() != null || !ReadYourWritesWindow.inRequest() || readYourWrites.isActive()) {
+            return primaryConnections.getConnection();
+        }
+        int first = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((first + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.connections.getConnection();
+            } catch (AdmissionControlledDataSource.AdmissionTimeoutException e) {
+                throw e;
+            } catch (SQLException e) {
+                replica.healthy = false;
+            }
+        }
+        return primaryConnections.getConnection();
+    }
+
+    public DataSource primary() {
+        return primaryConnections;
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            replica.healthy = isValid(replica.dataSource);
+        }
+    }
+
+    public List<String> healthyReplicas() {
+        return replicas.stream()
+                .filter(replica -> replica.healthy)
+                .map(replica -> replica.dataSource.getPoolName())
+                .toList();
+    }
+
+    // Fonte de conexões read-only do LazyConnectionDataSourceProxy
+    public DataSource asDataSource() {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return ReplicaPool.this.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("Replica connections use the configured credentials");
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    // Conexão morta sai do pool, senão o Hikari a entregaria de novo sem validar
+    private static boolean isValid(HikariDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return true;
+            }
+            dataSource.evictConnection(connection);
+            return false;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private final DataSource connections;
+        private volatile boolean healthy = true;
+
+        private Replica(HikariDataSource dataSource, DataSource connections) {
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+    }
+}
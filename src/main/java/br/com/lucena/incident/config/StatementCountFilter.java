@@ -0,0 +1,47 @@
+package br.com.lucena.incident.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Registra quantos comandos SQL cada requisição executou, por método e rota (o padrão
+// mapeado, não a URI concreta, para manter a cardinalidade baixa). Um N+1 aparece
+// como um salto em incident.db.statements sem precisar ligar o show-sql.
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    static final String METRIC = "incident.db.statements";
+    // Poucos buckets fixos: o que importa é distinguir um, alguns e "muitos" (0 cai no primeiro)
+    private static final double[] BUCKETS = {1, 2, 5, 10, 20, 50, 100};
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = StatementCounter.stop();
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC)
+                    .description("SQL statements executed per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", route == null ? "UNKNOWN" : route.toString())
+                    .serviceLevelObjectives(BUCKETS)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.lucena.incident.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Conta os comandos SQL que o Hibernate prepara na thread da requisição.
+// Fora de uma contagem aberta por StatementCountFilter o custo é um ThreadLocal.get.
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.lucena.incident.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Timer por método público das classes anotadas com @Timed, com as mesmas tags do TimedAspect
+// do Micrometer (class, method, exception). O TimedAspect monta as tags e procura o timer no
+// registry a cada chamada e passa pelo join point do AspectJ, o que custava ~1,7µs, mais que o
+// próprio getIncidentById em cache; aqui o timer de sucesso de cada método é resolvido uma vez.
+public class TimedMethodInterceptor implements MethodInterceptor {
+
+    public static final StaticMethodMatcherPointcut POINTCUT = new StaticMethodMatcherPointcut() {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return Modifier.isPublic(method.getModifiers()) && targetClass.isAnnotationPresent(Timed.class);
+        }
+    };
+
+    // Resolvido só no primeiro timer: advisors são criados antes dos demais beans
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public TimedMethodInterceptor(Supplier<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            Timer timer = timers.get(method);
+            if (timer == null) {
+                timer = timers.computeIfAbsent(method, key -> timer(invocation, "none"));
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            // Caminho de erro: poucas combinações, resolvidas pelo registry
+            timer(invocation, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(MethodInvocation invocation, String exception) {
+        Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+        Timed timed = targetClass.getAnnotation(Timed.class);
+        return Timer.builder(timed.value())
+                .description(timed.description().isEmpty() ? null : timed.description())
+                .tags(timed.extraTags())
+                .tag("class", targetClass.getName())
+                .tag("method", invocation.getMethod().getName())
+                .tag("exception", exception)
+                .publishPercentileHistogram(timed.histogram() ? Boolean.TRUE : null)
+                .register(meterRegistry.get());
+    }
+}
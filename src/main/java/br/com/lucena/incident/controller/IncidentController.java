@@ -1,53 +1,204 @@
 package br.com.lucena.incident.controller;
 
+import br.com.lucena.incident.dto.BatchResultDTO;
+import br.com.lucena.incident.dto.CacheStatsDTO;
+import br.com.lucena.incident.dto.ImportResultDTO;
+import br.com.lucena.incident.dto.IncidentHistoryEntryDTO;
+import br.com.lucena.incident.dto.IncidentPageDTO;
 import br.com.lucena.incident.dto.IncidentRequestDTO;
 import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.dto.IncidentSearchResultDTO;
+import br.com.lucena.incident.dto.IncidentStatsDTO;
+import br.com.lucena.incident.dto.StatusTransitionDTO;
 import br.com.lucena.incident.dto.StatusUpdateDTO;
 import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentFilter;
+import br.com.lucena.incident.service.IncidentBatchService;
+import br.com.lucena.incident.service.IncidentChangeTracker;
+import br.com.lucena.incident.service.IncidentIngestQueue;
+import br.com.lucena.incident.service.IncidentQueryService;
 import br.com.lucena.incident.service.IncidentService;
+import br.com.lucena.incident.service.IncidentTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/incidents")
 @Tag(name = "Incident Management", description = "Endpoints for managing incidents")
 public class IncidentController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private IncidentService incidentService;
+    private IncidentBatchService incidentBatchService;
+    private IncidentQueryService incidentQueryService;
+    private IncidentTransferService incidentTransferService;
+    private IncidentIngestQueue incidentIngestQueue;
+    private IncidentChangeTracker changeTracker;
+    private ObjectMapper objectMapper;
     
     @Autowired
-    public IncidentController(IncidentService incidentService) {
+    public IncidentController(IncidentService incidentService, IncidentBatchService incidentBatchService,
+                              IncidentQueryService incidentQueryService, IncidentTransferService incidentTransferService,
+                              IncidentIngestQueue incidentIngestQueue, IncidentChangeTracker changeTracker,
+                              ObjectMapper objectMapper) {
         this.incidentService = incidentService;
+        this.incidentBatchService = incidentBatchService;
+        this.incidentQueryService = incidentQueryService;
+        this.incidentTransferService = incidentTransferService;
+        this.incidentIngestQueue = incidentIngestQueue;
+        this.changeTracker = changeTracker;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    @Operation(summary = "Create a new incident")
+    @Operation(summary = "Create a new incident, or count one more occurrence of a duplicate still open")
     public ResponseEntity<IncidentResponseDTO> createIncident(@Valid @RequestBody IncidentRequestDTO requestDTO) {
-        return new ResponseEntity<>(incidentService.createIncident(requestDTO), HttpStatus.CREATED);
+        boolean async = incidentIngestQueue.isEnabled();
+        IncidentResponseDTO incident = async
+                ? incidentIngestQueue.submit(requestDTO)
+                : incidentService.createIncident(requestDTO);
+        // Repetição agregada a um incidente existente não cria recurso novo
+        boolean coalesced = incident.getOccurrences() != null && incident.getOccurrences() > 1;
+        if (coalesced) {
+            return ResponseEntity.ok(incident);
+        }
+        if (async) {
+            // Aceito e no journal; a gravação no banco vem em seguida
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/incidents/" + incident.getIdIncident()))
+                    .body(incident);
+        }
+        return new ResponseEntity<>(incident, HttpStatus.CREATED);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create incidents in batch, reporting the result of each item")
+    public ResponseEntity<BatchResultDTO> createIncidents(@RequestBody List<IncidentRequestDTO> requests) {
+        return ResponseEntity.ok(incidentBatchService.createIncidents(requests));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get incident by ID")
     public ResponseEntity<IncidentResponseDTO> getIncidentById(@PathVariable Long id) {
+        // Lê o que o próprio cliente acabou de criar pela fila assíncrona
+        incidentIngestQueue.awaitWritten(id);
         return ResponseEntity.ok(incidentService.getIncidentById(id));
     }
 
+    @GetMapping("/{id}/history")
+    @Operation(summary = "Get every change recorded for an incident, oldest first")
+    public ResponseEntity<List<IncidentHistoryEntryDTO>> getHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(incidentService.getHistory(id));
+    }
+
+    @GetMapping("/{id}/history/state")
+    @Operation(summary = "Rebuild an incident as it was at a point in time from its history")
+    public ResponseEntity<IncidentResponseDTO> getIncidentAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(incidentService.getIncidentAt(id, at));
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get hit/miss/eviction counters of the incident cache")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(incidentService.getCacheStats());
+    }
+
+    // Listagens com ETag: o If-None-Match de um polling sem mudanças desde a última resposta
+    // recebe 304 antes de qualquer consulta ou serialização
     @GetMapping
-    @Operation(summary = "Get all incidents")
-    public ResponseEntity<List<IncidentResponseDTO>> getAllIncidents() {
-        return ResponseEntity.ok(incidentService.getAllIncidents());
+    @Operation(summary = "Get all incidents, one keyset page at a time")
+    public ResponseEntity<IncidentPageDTO> getAllIncidents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + IncidentService.DEFAULT_PAGE_SIZE) int size,
+            WebRequest request) {
+        if (request.checkNotModified(changeTracker.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok(incidentService.getAllIncidents(cursor, size));
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all incidents as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamAllIncidents() {
+        StreamingResponseBody body = outputStream -> incidentService.streamAllIncidents(
+                incident -> writeLine(outputStream, incident));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Stream every incident in the compact binary snapshot format")
+    public ResponseEntity<StreamingResponseBody> exportIncidents() {
+        StreamingResponseBody body = outputStream -> incidentTransferService.exportTo(Channels.newChannel(outputStream));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"incidents.snapshot\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    // Lê o corpo direto do socket, lote a lote, sem carregar o arquivo em memória
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Import incidents from a snapshot produced by /export, keeping ids and dates")
+    public ResponseEntity<ImportResultDTO> importIncidents(InputStream body) throws IOException {
+        return ResponseEntity.ok(incidentTransferService.importFrom(Channels.newChannel(body)));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search incidents by name and description, ranked by relevance")
+    public ResponseEntity<IncidentSearchResultDTO> search(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(incidentService.search(q, page, size));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Incidents created and closed per hour and per day, time to close and current count per status")
+    public ResponseEntity<IncidentStatsDTO> getStats(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(incidentService.getStats(hours, days));
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream incident changes as server-sent events, resuming after Last-Event-ID")
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return incidentService.subscribeToEvents(lastEventId);
     }
 
     @GetMapping("/latest")
     @Operation(summary = "Get 20 latest incidents")
-    public ResponseEntity<List<IncidentResponseDTO>> getLatest20Incidents() {
+    public ResponseEntity<List<IncidentResponseDTO>> getLatest20Incidents(WebRequest request) {
+        if (request.checkNotModified(changeTracker.etag())) {
+            return null;
+        }
         return ResponseEntity.ok(incidentService.getLatest20Incidents());
     }
 
@@ -55,12 +206,14 @@ public class IncidentController {
     @Operation(summary = "Update an incident")
     public ResponseEntity<IncidentResponseDTO> updateIncident(@PathVariable Long id, 
                                                              @Valid @RequestBody IncidentRequestDTO requestDTO) {
+        incidentIngestQueue.awaitWritten(id);
         return ResponseEntity.ok(incidentService.updateIncident(id, requestDTO));
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete an incident")
     public ResponseEntity<Void> deleteIncident(@PathVariable Long id) {
+        incidentIngestQueue.awaitWritten(id);
         incidentService.deleteIncident(id);
         return ResponseEntity.noContent().build();
     }
@@ -70,12 +223,59 @@ public class IncidentController {
     public ResponseEntity<IncidentResponseDTO> updateStatus(
             @PathVariable Long id, 
             @Valid @RequestBody StatusUpdateDTO statusUpdate) {
-        return ResponseEntity.ok(incidentService.updateStatus(id, statusUpdate.getStatus()));
+        incidentIngestQueue.awaitWritten(id);
+        return ResponseEntity.ok(incidentService.updateStatus(id, statusUpdate.getStatus(), statusUpdate.getExpectedStatus()));
+    }
+
+    @PatchMapping("/status/batch")
+    @Operation(summary = "Update the status of incidents in batch, reporting the result of each item")
+    public ResponseEntity<BatchResultDTO> updateStatuses(@RequestBody List<StatusTransitionDTO> transitions) {
+        return ResponseEntity.ok(incidentBatchService.updateStatuses(transitions));
+    }
+
+    @GetMapping("/status/counts")
+    @Operation(summary = "Count incidents per status")
+    public ResponseEntity<Map<IncidentStatus, Long>> countByStatus() {
+        return ResponseEntity.ok(incidentService.countByStatus());
     }
 
     @GetMapping("/status/{status}")
-    @Operation(summary = "Get incidents by status")
-    public ResponseEntity<List<IncidentResponseDTO>> getByStatus(@PathVariable IncidentStatus status) {
-        return ResponseEntity.ok(incidentService.findByStatus(status));
+    @Operation(summary = "Get incidents by status, one keyset page at a time")
+    public ResponseEntity<IncidentPageDTO> getByStatus(
+            @PathVariable IncidentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + IncidentService.DEFAULT_PAGE_SIZE) int size,
+            WebRequest request) {
+        if (request.checkNotModified(changeTracker.etag(status))) {
+            return null;
+        }
+        return ResponseEntity.ok(incidentService.findByStatus(status, cursor, size));
+    }
+
+    // Intervalos [from, to); status aceita vários valores (status=OPEN,IN_PROGRESS ou repetido)
+    @GetMapping("/query")
+    @Operation(summary = "Filter incidents by a set of statuses and createdAt/updatedAt/closedAt ranges, one keyset page at a time")
+    public ResponseEntity<IncidentPageDTO> query(
+            @RequestParam(required = false) Set<IncidentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime closedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime closedTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + IncidentService.DEFAULT_PAGE_SIZE) int size) {
+        IncidentFilter filter = new IncidentFilter(status, createdFrom, createdTo, updatedFrom, updatedTo,
+                closedFrom, closedTo);
+        return ResponseEntity.ok(incidentQueryService.query(filter, cursor, size));
+    }
+
+    private void writeLine(OutputStream outputStream, IncidentResponseDTO incident) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(incident));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,17 @@
+package br.com.lucena.incident.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDTO {
+    // Posição do item na requisição original
+    private int index;
+    // Código HTTP equivalente ao resultado individual do item
+    private int status;
+    private IncidentResponseDTO incident;
+    private String error;
+}
@@ -0,0 +1,16 @@
+package br.com.lucena.incident.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDTO> results;
+}
@@ -0,0 +1,17 @@
+package br.com.lucena.incident.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    // Incidentes gravados, na tabela principal ou no arquivo
+    private long imported;
+    // Ids que já existiam (na tabela principal ou no arquivo) ou repetidos no próprio arquivo
+    private long skipped;
+    // Eventos de histórico restaurados
+    private long events;
+}
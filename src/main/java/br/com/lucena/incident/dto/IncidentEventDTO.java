@@ -0,0 +1,19 @@
+package br.com.lucena.incident.dto;
+
+import br.com.lucena.incident.model.IncidentEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentEventDTO {
+    private IncidentEventType type;
+    private Long idIncident;
+    // Estado após a mudança; nulo em DELETED
+    private IncidentResponseDTO incident;
+    private LocalDateTime timestamp;
+}
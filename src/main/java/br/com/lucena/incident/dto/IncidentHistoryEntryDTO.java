@@ -0,0 +1,25 @@
+package br.com.lucena.incident.dto;
+
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentHistoryEntryDTO {
+    private Long version;
+    private IncidentEventType type;
+    private LocalDateTime occurredAt;
+    // Status antes e depois do evento; previousStatus só em STATUS_CHANGED
+    private IncidentStatus previousStatus;
+    private IncidentStatus status;
+    // Preenchidos só quando o evento altera nome/descrição (CREATED e UPDATED)
+    private String name;
+    private String description;
+    private LocalDateTime closedAt;
+}
@@ -0,0 +1,17 @@
+package br.com.lucena.incident.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentPageDTO {
+    private List<IncidentResponseDTO> content;
+    private int size;
+    // Cursor opaco para a próxima página; nulo quando não há mais registros
+    private String nextCursor;
+}
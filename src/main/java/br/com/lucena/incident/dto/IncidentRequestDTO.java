@@ -22,4 +22,9 @@ public class IncidentRequestDTO {
     private String description;
     
     private LocalDateTime closedAt;
+
+    // Opcional: criações com a mesma chave dentro da janela viram ocorrências de um único
+    // incidente aberto; sem ela a chave é um hash de nome e descrição
+    @Size(max = 255, message = "Dedup key must be at most 255 characters")
+    private String dedupKey;
 } 
\ No newline at end of file
@@ -18,4 +18,7 @@ public class IncidentResponseDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime closedAt;
+    private Long version;
+    // Criações duplicadas agregadas neste incidente, incluindo a original
+    private Long occurrences;
 } 
\ No newline at end of file
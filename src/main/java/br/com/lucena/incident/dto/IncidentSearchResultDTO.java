@@ -0,0 +1,19 @@
+package br.com.lucena.incident.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentSearchResultDTO {
+    // Incidentes da página, do mais relevante para o menos relevante
+    private List<IncidentResponseDTO> content;
+    private int page;
+    private int size;
+    // Quantidade de incidentes que contêm todos os termos da busca
+    private long total;
+}
@@ -0,0 +1,19 @@
+package br.com.lucena.incident.dto;
+
+import br.com.lucena.incident.model.IncidentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentStatsDTO {
+    // Quantidade atual de incidentes em cada status
+    private Map<IncidentStatus, Long> currentByStatus;
+    private List<StatsBucketDTO> hourly;
+    private List<StatsBucketDTO> daily;
+}
@@ -0,0 +1,22 @@
+package br.com.lucena.incident.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsBucketDTO {
+    // Início da hora ou do dia
+    private LocalDateTime start;
+    private long created;
+    private long closed;
+    // Tempo entre criação e fechamento dos incidentes fechados no bucket, em segundos;
+    // nulos quando nenhum foi fechado
+    private Double meanTimeToCloseSeconds;
+    private Long p50TimeToCloseSeconds;
+    private Long p95TimeToCloseSeconds;
+}
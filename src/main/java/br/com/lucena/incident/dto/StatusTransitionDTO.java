@@ -0,0 +1,14 @@
+package br.com.lucena.incident.dto;
+
+import br.com.lucena.incident.model.IncidentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusTransitionDTO {
+    private Long idIncident;
+    private IncidentStatus status;
+}
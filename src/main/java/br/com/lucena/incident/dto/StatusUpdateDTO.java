@@ -1,9 +1,14 @@
 package br.com.lucena.incident.dto;
 
 import br.com.lucena.incident.model.IncidentStatus;
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
 public class StatusUpdateDTO {
+    @NotNull(message = "Status is required")
     private IncidentStatus status;
+
+    // Opcional: a transição só é aplicada se o status atual for este
+    private IncidentStatus expectedStatus;
 } 
\ No newline at end of file
@@ -0,0 +1,11 @@
+package br.com.lucena.incident.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IncidentConflictException extends RuntimeException {
+    public IncidentConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.lucena.incident.exception;
+
+import br.com.lucena.incident.model.IncidentStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class InvalidStatusTransitionException extends RuntimeException {
+    public InvalidStatusTransitionException(Long id, IncidentStatus from, IncidentStatus to) {
+        super("Incident " + id + " cannot move from " + from + " to " + to +
+                (from.successors().isEmpty() ? "; " + from + " is final" : "; allowed: " + from.successors()));
+    }
+
+    public InvalidStatusTransitionException(IncidentStatus to) {
+        super("Incidents cannot move to " + to + "; it is only assigned on creation");
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.lucena.incident.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// Cópia somente leitura de um incidente fechado movido para incidents_archive.
+// As linhas são inseridas em lote por INSERT ... SELECT no IncidentArchiver.
+@Entity
+@Immutable
+@Table(name = "incidents_archive", indexes = {
+        @Index(name = "idx_incidents_archive_closed_at", columnList = "closedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedIncident {
+
+    @Id
+    private Long idIncident;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, length = 1000)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IncidentStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column
+    private LocalDateTime closedAt;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private Long occurrences;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -3,19 +3,34 @@ package br.com.lucena.incident.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "incidents")
+@Table(name = "incidents", indexes = {
+        @Index(name = "idx_incidents_created_at_id", columnList = "createdAt, idIncident"),
+        @Index(name = "idx_incidents_status_created_at_id", columnList = "status, createdAt, idIncident"),
+        @Index(name = "idx_incidents_status_closed_at", columnList = "status, closedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Incident {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequência com alocação em blocos (pooled) para permitir batch de INSERT no JDBC. O otimizador
+    // próprio deixa a importação descartar o bloco em memória depois de gravar ids explícitos.
+    @GeneratedValue(generator = "incidents_seq")
+    @GenericGenerator(name = "incidents_seq", type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "incidents_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM,
+                    value = "br.com.lucena.incident.service.IncidentIdOptimizer")
+    })
     private Long idIncident;
 
     @Column(nullable = false)
@@ -38,4 +53,13 @@ public class Incident {
 
     @Column
     private LocalDateTime closedAt;
+
+    // Só muda por UPDATE direto (IncidentRepository.addOccurrences): um save da entidade
+    // com um valor lido antes nunca sobrescreve contagens já gravadas
+    @Column(nullable = false, updatable = false)
+    private Long occurrences = 1L;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 } 
\ No newline at end of file
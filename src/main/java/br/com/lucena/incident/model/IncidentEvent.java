@@ -0,0 +1,59 @@
+package br.com.lucena.incident.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// Entrada do log append-only de mutações. Só os campos alterados são preenchidos,
+// exceto nos snapshots, que trazem o estado completo do incidente naquela versão.
+@Entity
+@Immutable
+@Table(name = "incident_events", indexes = {
+        @Index(name = "uk_incident_events_incident_version", columnList = "idIncident, version", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentEvent {
+
+    @Id
+    // Mesma alocação em blocos de Incident: os eventos entram no mesmo batch JDBC da escrita
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "incident_events_seq")
+    @SequenceGenerator(name = "incident_events_seq", sequenceName = "incident_events_seq", allocationSize = 50)
+    private Long idEvent;
+
+    @Column(nullable = false)
+    private Long idIncident;
+
+    // Versão do incidente após a mudança; DELETED usa a seguinte à última gravada
+    @Column(nullable = false)
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IncidentEventType type;
+
+    @Column(nullable = false)
+    private boolean snapshot;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column
+    private String name;
+
+    @Column(length = 1000)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private IncidentStatus status;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime closedAt;
+}
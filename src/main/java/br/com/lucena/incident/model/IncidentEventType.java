@@ -0,0 +1,9 @@
+package br.com.lucena.incident.model;
+
+public enum IncidentEventType {
+    CREATED,
+    UPDATED,        // Nome/descrição alterados
+    STATUS_CHANGED,
+    DELETED,
+    COALESCED       // Criações duplicadas somadas ao contador de ocorrências (só no fluxo SSE, fora do histórico)
+}
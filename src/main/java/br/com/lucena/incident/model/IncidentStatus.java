@@ -1,8 +1,50 @@
 package br.com.lucena.incident.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum IncidentStatus {
     OPEN,           // Recém criado
     IN_PROGRESS,    // Em análise/tratamento
     RESOLVED,       // Resolvido mas ainda não fechado
-    CLOSED          // Completamente fechado
-} 
\ No newline at end of file
+    CLOSED;         // Completamente fechado
+
+    // Matriz de transições pré-calculada: para cada destino, os status de origem aceitos.
+    // OPEN -> IN_PROGRESS -> RESOLVED -> CLOSED, e um RESOLVED ainda pode ser reaberto para IN_PROGRESS
+    private static final Map<IncidentStatus, Set<IncidentStatus>> PREDECESSORS = new EnumMap<>(IncidentStatus.class);
+    private static final Map<IncidentStatus, Set<IncidentStatus>> SUCCESSORS = new EnumMap<>(IncidentStatus.class);
+
+    static {
+        allow(OPEN, IN_PROGRESS);
+        allow(IN_PROGRESS, RESOLVED);
+        allow(RESOLVED, IN_PROGRESS);
+        allow(RESOLVED, CLOSED);
+        for (IncidentStatus status : values()) {
+            PREDECESSORS.putIfAbsent(status, EnumSet.noneOf(IncidentStatus.class));
+            SUCCESSORS.putIfAbsent(status, EnumSet.noneOf(IncidentStatus.class));
+            PREDECESSORS.put(status, Collections.unmodifiableSet(PREDECESSORS.get(status)));
+            SUCCESSORS.put(status, Collections.unmodifiableSet(SUCCESSORS.get(status)));
+        }
+    }
+
+    private static void allow(IncidentStatus from, IncidentStatus to) {
+        PREDECESSORS.computeIfAbsent(to, status -> EnumSet.noneOf(IncidentStatus.class)).add(from);
+        SUCCESSORS.computeIfAbsent(from, status -> EnumSet.noneOf(IncidentStatus.class)).add(to);
+    }
+
+    // Status a partir dos quais é permitido chegar neste
+    public Set<IncidentStatus> predecessors() {
+        return PREDECESSORS.get(this);
+    }
+
+    public Set<IncidentStatus> successors() {
+        return SUCCESSORS.get(this);
+    }
+
+    public boolean canTransitionTo(IncidentStatus target) {
+        return SUCCESSORS.get(this).contains(target);
+    }
+}
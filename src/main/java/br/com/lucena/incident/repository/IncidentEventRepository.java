@@ -0,0 +1,31 @@
+package br.com.lucena.incident.repository;
+
+import br.com.lucena.incident.model.IncidentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface IncidentEventRepository extends JpaRepository<IncidentEvent, Long> {
+
+    List<IncidentEvent> findByIdIncidentOrderByVersionAsc(Long idIncident);
+
+    // Último evento (maior versão) de cada incidente da lista que já tem histórico
+    @Query("SELECT e FROM IncidentEvent e WHERE e.idIncident IN :ids AND e.version = " +
+            "(SELECT MAX(m.version) FROM IncidentEvent m WHERE m.idIncident = e.idIncident)")
+    List<IncidentEvent> findLatestByIdIncidentIn(@Param("ids") Collection<Long> ids);
+
+    // Do último snapshot até o instante pedido: o suficiente para reconstruir o estado naquele ponto
+    @Query("SELECT e FROM IncidentEvent e WHERE e.idIncident = :idIncident AND e.occurredAt <= :at " +
+            "AND e.version >= (SELECT MAX(s.version) FROM IncidentEvent s " +
+            "WHERE s.idIncident = :idIncident AND s.snapshot = true AND s.occurredAt <= :at) " +
+            "ORDER BY e.version ASC")
+    List<IncidentEvent> findReplayUntil(@Param("idIncident") Long idIncident, @Param("at") LocalDateTime at);
+}
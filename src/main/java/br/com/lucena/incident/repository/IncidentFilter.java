@@ -0,0 +1,22 @@
+package br.com.lucena.incident.repository;
+
+import br.com.lucena.incident.model.IncidentStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Filtro composto de /api/incidents/query: conjunto de status e intervalos [from, to) das datas.
+// Campos nulos e conjunto vazio não filtram. Igualdade por valor, então serve de chave de cache.
+public record IncidentFilter(Set<IncidentStatus> statuses,
+                             LocalDateTime createdFrom, LocalDateTime createdTo,
+                             LocalDateTime updatedFrom, LocalDateTime updatedTo,
+                             LocalDateTime closedFrom, LocalDateTime closedTo) {
+
+    public IncidentFilter {
+        statuses = statuses == null || statuses.isEmpty()
+                ? Set.of()
+                : Collections.unmodifiableSet(EnumSet.copyOf(statuses));
+    }
+}
@@ -1,18 +1,126 @@
 package br.com.lucena.incident.repository;
 
+import br.com.lucena.incident.dto.IncidentResponseDTO;
 import br.com.lucena.incident.model.Incident;
 import br.com.lucena.incident.model.IncidentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface IncidentRepository extends JpaRepository<Incident, Long> {
+@Transactional(readOnly = true)
+public interface IncidentRepository extends JpaRepository<Incident, Long>, IncidentRepositoryCustom {
+
+    // Projeção por construtor: as leituras não hidratam entidades nem geram snapshot de dirty checking
+    String SELECT_DTO = "SELECT new br.com.lucena.incident.dto.IncidentResponseDTO(" +
+            "i.idIncident, i.name, i.description, i.status, i.createdAt, i.updatedAt, i.closedAt, i.version, " +
+            "i.occurrences) " +
+            "FROM Incident i ";
+
+    @Query(SELECT_DTO + "WHERE i.idIncident = :idIncident")
+    Optional<IncidentResponseDTO> findDtoById(@Param("idIncident") Long idIncident);
     
-    @Query("SELECT i FROM Incident i ORDER BY i.createdAt DESC")
-    List<Incident> findTop20ByOrderByCreatedAtDesc();
+    @Query(SELECT_DTO + "WHERE i.idIncident IN :ids")
+    List<IncidentResponseDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Importação: ids do lote que já existem, na tabela principal ou no arquivo
+    @Query("SELECT i.idIncident FROM Incident i WHERE i.idIncident IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.idIncident FROM ArchivedIncident a WHERE a.idIncident IN :ids")
+    List<Long> findArchivedIds(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_DTO + "ORDER BY i.createdAt DESC, i.idIncident DESC")
+    List<IncidentResponseDTO> findLatest(Pageable pageable);
     
-    List<Incident> findByStatus(IncidentStatus status);
-} 
\ No newline at end of file
+    @Query(SELECT_DTO + "WHERE i.status = :status ORDER BY i.createdAt ASC, i.idIncident ASC")
+    List<IncidentResponseDTO> findFirstPageByStatus(@Param("status") IncidentStatus status, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE i.status = :status " +
+            "AND (i.createdAt > :createdAt OR (i.createdAt = :createdAt AND i.idIncident > :idIncident)) " +
+            "ORDER BY i.createdAt ASC, i.idIncident ASC")
+    List<IncidentResponseDTO> findPageByStatusAfter(@Param("status") IncidentStatus status,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("idIncident") Long idIncident,
+                                                    Pageable pageable);
+
+    @Query("SELECT i.status FROM Incident i WHERE i.idIncident = :idIncident")
+    Optional<IncidentStatus> findStatusById(@Param("idIncident") Long idIncident);
+
+    // Transição atômica em um único UPDATE: só altera a linha se o status atual estiver em :from
+    @Transactional
+    @Modifying
+    @Query("UPDATE Incident i SET i.status = :status, i.closedAt = :closedAt, i.updatedAt = :updatedAt, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.idIncident = :idIncident AND i.status IN :from")
+    int updateStatusIfCurrentIn(@Param("idIncident") Long idIncident,
+                                @Param("from") Collection<IncidentStatus> from,
+                                @Param("status") IncidentStatus status,
+                                @Param("closedAt") LocalDateTime closedAt,
+                                @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Soma as ocorrências agregadas em memória desde o último flush; fora do controle de versão,
+    // então não conflita com edições concorrentes do incidente
+    @Transactional
+    @Modifying
+    @Query("UPDATE Incident i SET i.occurrences = i.occurrences + :delta WHERE i.idIncident = :idIncident")
+    int addOccurrences(@Param("idIncident") Long idIncident, @Param("delta") long delta);
+
+    @Query("SELECT i.status AS status, COUNT(i) AS total FROM Incident i GROUP BY i.status")
+    List<StatusCount> countGroupedByStatus();
+
+    @Query(SELECT_DTO + "ORDER BY i.createdAt ASC, i.idIncident ASC")
+    List<IncidentResponseDTO> findFirstPage(Pageable pageable);
+
+    @Query(SELECT_DTO +
+            "WHERE i.createdAt > :createdAt OR (i.createdAt = :createdAt AND i.idIncident > :idIncident) " +
+            "ORDER BY i.createdAt ASC, i.idIncident ASC")
+    List<IncidentResponseDTO> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                            @Param("idIncident") Long idIncident,
+                                            Pageable pageable);
+
+    // Leitura por id dos incidentes já arquivados, mesma projeção de findDtoById
+    @Query("SELECT new br.com.lucena.incident.dto.IncidentResponseDTO(" +
+            "a.idIncident, a.name, a.description, a.status, a.createdAt, a.updatedAt, a.closedAt, a.version, " +
+            "a.occurrences) " +
+            "FROM ArchivedIncident a WHERE a.idIncident = :idIncident")
+    Optional<IncidentResponseDTO> findArchivedDtoById(@Param("idIncident") Long idIncident);
+
+    @Query("SELECT COUNT(a) FROM ArchivedIncident a WHERE a.closedAt < :closedAt")
+    long countArchivedClosedBefore(@Param("closedAt") LocalDateTime closedAt);
+
+    // Próximo lote a arquivar, com as linhas travadas (SELECT ... FOR UPDATE) até o fim da
+    // transação do lote, então uma reabertura concorrente não se perde entre a cópia e o DELETE
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i.idIncident FROM Incident i " +
+            "WHERE i.status = br.com.lucena.incident.model.IncidentStatus.CLOSED AND i.closedAt < :closedAt " +
+            "ORDER BY i.closedAt ASC, i.idIncident ASC")
+    List<Long> lockClosedBefore(@Param("closedAt") LocalDateTime closedAt, Pageable pageable);
+
+    // Cópia do lote num único INSERT ... SELECT, sem hidratar entidades
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO incidents_archive " +
+            "(id_incident, name, description, status, created_at, updated_at, closed_at, version, occurrences, archived_at) " +
+            "SELECT id_incident, name, description, status, created_at, updated_at, closed_at, version, occurrences, " +
+            ":archivedAt " +
+            "FROM incidents WHERE id_incident IN :ids", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Incident i WHERE i.idIncident IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
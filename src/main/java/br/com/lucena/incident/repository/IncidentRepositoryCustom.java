@@ -0,0 +1,42 @@
+package br.com.lucena.incident.repository;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.ArchivedIncident;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEvent;
+
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface IncidentRepositoryCustom {
+
+    // Percorre todos os incidentes em ordem (createdAt, idIncident) via cursor JDBC,
+    // desanexando cada linha após o consumo. Deve ser chamado dentro de uma transação.
+    void forEachIncident(Consumer<Incident> consumer);
+
+    // Mesmo percurso para os arquivados fechados a partir de closedSince
+    void forEachArchivedIncident(LocalDateTime closedSince, Consumer<ArchivedIncident> consumer);
+
+    // Exportação: todos os arquivados, em ordem de id
+    void forEachArchivedIncident(Consumer<ArchivedIncident> consumer);
+
+    // Exportação: todo o histórico (incident_events), em ordem de incidente e versão
+    void forEachEvent(Consumer<IncidentEvent> consumer);
+
+    // Página keyset em (createdAt, idIncident) dos incidentes que atendem ao filtro, depois da
+    // posição (afterCreatedAt, afterId) quando informada
+    List<IncidentResponseDTO> findFiltered(IncidentFilter filter, LocalDateTime afterCreatedAt, Long afterId,
+                                           Pageable pageable);
+
+    // INSERT em batch JDBC de incidentes com id, datas e versão já definidos (ingestão assíncrona),
+    // sem passar pelo gerador de id nem pelo contexto de persistência. Deve ser chamado dentro de
+    // uma transação.
+    void insertAll(List<Incident> incidents);
+
+    // Mesmo INSERT em batch para incidents_archive (importação de arquivados). Deve ser chamado
+    // dentro de uma transação.
+    void insertArchived(List<ArchivedIncident> incidents);
+}
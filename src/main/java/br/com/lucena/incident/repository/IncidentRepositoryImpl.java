@@ -0,0 +1,216 @@
+package br.com.lucena.incident.repository;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.ArchivedIncident;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class IncidentRepositoryImpl implements IncidentRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    // Bits da forma de um filtro: quais critérios estão presentes, não os valores
+    private static final int STATUSES = 1;
+    private static final int CREATED_FROM = 1 << 1;
+    private static final int CREATED_TO = 1 << 2;
+    private static final int UPDATED_FROM = 1 << 3;
+    private static final int UPDATED_TO = 1 << 4;
+    private static final int CLOSED_FROM = 1 << 5;
+    private static final int CLOSED_TO = 1 << 6;
+    private static final int AFTER = 1 << 7;
+
+    // JPQL compilado por forma (no máximo 256). Os valores entram sempre como parâmetros, então
+    // a mesma forma gera sempre a mesma string: o Hibernate reaproveita o plano interpretado
+    // (query plan cache) e o banco o PreparedStatement, em vez de traduzir a cada chamada como
+    // aconteceria com uma Criteria montada por requisição.
+    private static final Map<Integer, String> COMPILED = new ConcurrentHashMap<>();
+
+    private static final String INSERT = "INSERT INTO incidents " +
+            "(id_incident, name, description, status, created_at, updated_at, closed_at, occurrences, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ARCHIVED = "INSERT INTO incidents_archive " +
+            "(id_incident, name, description, status, created_at, updated_at, closed_at, occurrences, version, " +
+            "archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void forEachIncident(Consumer<Incident> consumer) {
+        forEach(entityManager.createQuery("SELECT i FROM Incident i ORDER BY i.createdAt ASC, i.idIncident ASC",
+                Incident.class), consumer);
+    }
+
+    @Override
+    public void forEachArchivedIncident(Consumer<ArchivedIncident> consumer) {
+        forEach(entityManager.createQuery("SELECT a FROM ArchivedIncident a ORDER BY a.idIncident ASC",
+                ArchivedIncident.class), consumer);
+    }
+
+    @Override
+    public void forEachEvent(Consumer<IncidentEvent> consumer) {
+        forEach(entityManager.createQuery("SELECT e FROM IncidentEvent e ORDER BY e.idIncident ASC, e.version ASC",
+                IncidentEvent.class), consumer);
+    }
+
+    // Transação própria: IncidentQueryService só chega aqui num miss do cache de páginas
+    @Override
+    @Transactional(readOnly = true)
+    public List<IncidentResponseDTO> findFiltered(IncidentFilter filter, LocalDateTime afterCreatedAt, Long afterId,
+                                                  Pageable pageable) {
+        int shape = shapeOf(filter, afterCreatedAt != null && afterId != null);
+        TypedQuery<IncidentResponseDTO> query = entityManager
+                .createQuery(COMPILED.computeIfAbsent(shape, IncidentRepositoryImpl::compile), IncidentResponseDTO.class)
+                .setMaxResults(pageable.getPageSize())
+                .setHint(AvailableHints.HINT_READ_ONLY, true);
+        if ((shape & STATUSES) != 0) {
+            query.setParameter("statuses", filter.statuses());
+        }
+        bind(query, shape, CREATED_FROM, "createdFrom", filter.createdFrom());
+        bind(query, shape, CREATED_TO, "createdTo", filter.createdTo());
+        bind(query, shape, UPDATED_FROM, "updatedFrom", filter.updatedFrom());
+        bind(query, shape, UPDATED_TO, "updatedTo", filter.updatedTo());
+        bind(query, shape, CLOSED_FROM, "closedFrom", filter.closedFrom());
+        bind(query, shape, CLOSED_TO, "closedTo", filter.closedTo());
+        if ((shape & AFTER) != 0) {
+            query.setParameter("afterCreatedAt", afterCreatedAt);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public void insertAll(List<Incident> incidents) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                for (Incident incident : incidents) {
+                    statement.setLong(1, incident.getIdIncident());
+                    statement.setString(2, incident.getName());
+                    statement.setString(3, incident.getDescription());
+                    statement.setString(4, incident.getStatus().name());
+                    statement.setTimestamp(5, Timestamp.valueOf(incident.getCreatedAt()));
+                    statement.setTimestamp(6, Timestamp.valueOf(incident.getUpdatedAt()));
+                    if (incident.getClosedAt() == null) {
+                        statement.setNull(7, Types.TIMESTAMP);
+                    } else {
+                        statement.setTimestamp(7, Timestamp.valueOf(incident.getClosedAt()));
+                    }
+                    statement.setLong(8, incident.getOccurrences());
+                    statement.setLong(9, incident.getVersion());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public void insertArchived(List<ArchivedIncident> incidents) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ARCHIVED)) {
+                for (ArchivedIncident incident : incidents) {
+                    statement.setLong(1, incident.getIdIncident());
+                    statement.setString(2, incident.getName());
+                    statement.setString(3, incident.getDescription());
+                    statement.setString(4, incident.getStatus().name());
+                    statement.setTimestamp(5, Timestamp.valueOf(incident.getCreatedAt()));
+                    statement.setTimestamp(6, Timestamp.valueOf(incident.getUpdatedAt()));
+                    if (incident.getClosedAt() == null) {
+                        statement.setNull(7, Types.TIMESTAMP);
+                    } else {
+                        statement.setTimestamp(7, Timestamp.valueOf(incident.getClosedAt()));
+                    }
+                    statement.setLong(8, incident.getOccurrences());
+                    statement.setLong(9, incident.getVersion());
+                    statement.setTimestamp(10, Timestamp.valueOf(incident.getArchivedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    static int shapeOf(IncidentFilter filter, boolean after) {
+        int shape = 0;
+        shape |= filter.statuses().isEmpty() ? 0 : STATUSES;
+        shape |= filter.createdFrom() == null ? 0 : CREATED_FROM;
+        shape |= filter.createdTo() == null ? 0 : CREATED_TO;
+        shape |= filter.updatedFrom() == null ? 0 : UPDATED_FROM;
+        shape |= filter.updatedTo() == null ? 0 : UPDATED_TO;
+        shape |= filter.closedFrom() == null ? 0 : CLOSED_FROM;
+        shape |= filter.closedTo() == null ? 0 : CLOSED_TO;
+        shape |= after ? AFTER : 0;
+        return shape;
+    }
+
+    // Mesma ordenação de findPageAfter, então a paginação usa os índices que começam por createdAt
+    // (ou status, createdAt) sem ordenar em memória
+    static String compile(int shape) {
+        List<String> conditions = new ArrayList<>();
+        if ((shape & STATUSES) != 0) {
+            conditions.add("i.status IN :statuses");
+        }
+        addRange(conditions, shape, CREATED_FROM, CREATED_TO, "createdAt", "created");
+        addRange(conditions, shape, UPDATED_FROM, UPDATED_TO, "updatedAt", "updated");
+        addRange(conditions, shape, CLOSED_FROM, CLOSED_TO, "closedAt", "closed");
+        if ((shape & AFTER) != 0) {
+            conditions.add("(i.createdAt > :afterCreatedAt OR (i.createdAt = :afterCreatedAt AND i.idIncident > :afterId))");
+        }
+        return IncidentRepository.SELECT_DTO
+                + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ")
+                + "ORDER BY i.createdAt ASC, i.idIncident ASC";
+    }
+
+    private static void addRange(List<String> conditions, int shape, int from, int to, String field, String parameter) {
+        if ((shape & from) != 0) {
+            conditions.add("i." + field + " >= :" + parameter + "From");
+        }
+        if ((shape & to) != 0) {
+            conditions.add("i." + field + " < :" + parameter + "To");
+        }
+    }
+
+    private static void bind(TypedQuery<?> query, int shape, int bit, String name, LocalDateTime value) {
+        if ((shape & bit) != 0) {
+            query.setParameter(name, value);
+        }
+    }
+
+    @Override
+    public void forEachArchivedIncident(LocalDateTime closedSince, Consumer<ArchivedIncident> consumer) {
+        forEach(entityManager
+                .createQuery("SELECT a FROM ArchivedIncident a WHERE a.closedAt >= :closedSince", ArchivedIncident.class)
+                .setParameter("closedSince", closedSince), consumer);
+    }
+
+    private <T> void forEach(TypedQuery<T> query, Consumer<T> consumer) {
+        try (Stream<T> stream = query
+                .setHint(AvailableHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            stream.forEach(row -> {
+                consumer.accept(row);
+                entityManager.detach(row);
+            });
+        }
+    }
+}
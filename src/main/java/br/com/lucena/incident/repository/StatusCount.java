@@ -0,0 +1,9 @@
+package br.com.lucena.incident.repository;
+
+import br.com.lucena.incident.model.IncidentStatus;
+
+public interface StatusCount {
+    IncidentStatus getStatus();
+
+    Long getTotal();
+}
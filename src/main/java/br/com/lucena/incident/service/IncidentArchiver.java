@@ -0,0 +1,95 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Move para incidents_archive os incidentes fechados há mais que a retenção, mantendo a tabela
+// principal (e seus índices, listagens e contagens) do tamanho do trabalho em aberto.
+// Cada lote roda na sua própria transação curta: trava até batch-size linhas, copia com
+// INSERT ... SELECT e apaga, então nenhuma trava dura mais que um lote.
+@Service
+@Timed("incident.archive")
+public class IncidentArchiver {
+
+    private IncidentRepository incidentRepository;
+    private TransactionTemplate transactionTemplate;
+    private LatestIncidentsBuffer latestIncidents;
+    private IncidentSearchIndex searchIndex;
+    private IncidentChangeTracker changeTracker;
+    private boolean enabled;
+    private Duration retention;
+    private int batchSize;
+
+    @Autowired
+    public IncidentArchiver(IncidentRepository incidentRepository,
+                            TransactionTemplate transactionTemplate,
+                            LatestIncidentsBuffer latestIncidents,
+                            IncidentSearchIndex searchIndex,
+                            IncidentChangeTracker changeTracker,
+                            @Value("${incident.archive.enabled:true}") boolean enabled,
+                            @Value("${incident.archive.retention:P30D}") Duration retention,
+                            @Value("${incident.archive.batch-size:500}") int batchSize) {
+        this.incidentRepository = incidentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.latestIncidents = latestIncidents;
+        this.searchIndex = searchIndex;
+        this.changeTracker = changeTracker;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${incident.archive.initial-delay:PT5M}",
+            fixedDelayString = "${incident.archive.interval:PT1H}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveClosedIncidents();
+        }
+    }
+
+    // Arquiva lote a lote até esgotar os elegíveis; devolve quantos incidentes foram movidos
+    public int archiveClosedIncidents() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int archived = 0;
+        while (true) {
+            List<Long> ids = archiveBatch(cutoff);
+            archived += ids.size();
+            if (ids.size() < batchSize) {
+                return archived;
+            }
+        }
+    }
+
+    private List<Long> archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = transactionTemplate.execute(tx -> {
+            List<Long> batch = incidentRepository.lockClosedBefore(cutoff, PageRequest.of(0, batchSize));
+            if (!batch.isEmpty()) {
+                incidentRepository.copyToArchive(batch, LocalDateTime.now());
+                incidentRepository.deleteAllByIdIn(batch);
+            }
+            return batch;
+        });
+        // O cache continua válido (a leitura por id cai no arquivo) e as métricas já contaram
+        // o fechamento; só a janela de recentes e a busca cobrem apenas a tabela principal
+        for (Long id : ids) {
+            latestIncidents.remove(id);
+            searchIndex.remove(id);
+        }
+        if (!ids.isEmpty()) {
+            // Saíram das listagens de todos e de CLOSED
+            changeTracker.changed(IncidentStatus.CLOSED);
+        }
+        return ids;
+    }
+}
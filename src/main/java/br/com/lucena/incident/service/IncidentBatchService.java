@@ -0,0 +1,223 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.BatchItemResultDTO;
+import br.com.lucena.incident.dto.BatchResultDTO;
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.StatusTransitionDTO;
+import br.com.lucena.incident.exception.IncidentConflictException;
+import br.com.lucena.incident.exception.InvalidStatusTransitionException;
+import br.com.lucena.incident.exception.ResourceNotFoundException;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.repository.IncidentRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Escritas em lote: cada chunk roda em uma única transação e o Hibernate
+// agrupa os INSERT/UPDATE, e os eventos do histórico, em batches JDBC (hibernate.jdbc.batch_size).
+@Service
+@Timed("incident.batch")
+public class IncidentBatchService {
+
+    private IncidentRepository incidentRepository;
+    private IncidentService incidentService;
+    private IncidentEventLog eventLog;
+    private TransactionTemplate transactionTemplate;
+    private Validator validator;
+    private int chunkSize;
+
+    @Autowired
+    public IncidentBatchService(IncidentRepository incidentRepository,
+                                IncidentService incidentService,
+                                IncidentEventLog eventLog,
+                                TransactionTemplate transactionTemplate,
+                                Validator validator,
+                                @Value("${incident.batch.chunk-size:500}") int chunkSize) {
+        this.incidentRepository = incidentRepository;
+        this.incidentService = incidentService;
+        this.eventLog = eventLog;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchResultDTO createIncidents(List<IncidentRequestDTO> requests) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[requests.size()];
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            String violations = validate(requests.get(i));
+            if (violations == null) {
+                accepted.add(i);
+            } else {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, violations);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(accepted)) {
+            try {
+                List<Incident> saved = transactionTemplate.execute(tx -> {
+                    List<Incident> created = incidentRepository.saveAll(
+                            chunk.stream().map(i -> incidentService.toEntity(requests.get(i))).toList());
+                    // Flush antes dos eventos: os timestamps só são gerados no INSERT
+                    incidentRepository.flush();
+                    eventLog.appendAll(IncidentEventType.CREATED, created.stream().map(incidentService::mapToDTO).toList());
+                    return created;
+                });
+                for (int j = 0; j < chunk.size(); j++) {
+                    results[chunk.get(j)] = success(chunk.get(j), HttpStatus.CREATED, IncidentEventType.CREATED, saved.get(j));
+                }
+            } catch (DataAccessException | TransactionException e) {
+                // Isola o item com problema reprocessando o chunk um a um
+                for (Integer i : chunk) {
+                    try {
+                        results[i] = success(i, HttpStatus.CREATED, IncidentEventType.CREATED,
+                                transactionTemplate.execute(tx -> {
+                                    Incident created = incidentRepository.save(incidentService.toEntity(requests.get(i)));
+                                    incidentRepository.flush();
+                                    eventLog.append(IncidentEventType.CREATED, incidentService.mapToDTO(created));
+                                    return created;
+                                }));
+                    } catch (DataAccessException | TransactionException ex) {
+                        results[i] = failure(i, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        return summarize(results);
+    }
+
+    public BatchResultDTO updateStatuses(List<StatusTransitionDTO> transitions) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[transitions.size()];
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < transitions.size(); i++) {
+            StatusTransitionDTO transition = transitions.get(i);
+            if (transition == null || transition.getIdIncident() == null || transition.getStatus() == null) {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, "idIncident and status are required");
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(accepted)) {
+            try {
+                // Carrega o chunk com um único SELECT ... IN e deixa o dirty checking
+                // emitir os UPDATE em batch no commit; transições inválidas são
+                // recusadas item a item sem derrubar o chunk
+                Map<Integer, String> rejected = new HashMap<>();
+                Map<Long, Incident> updated = transactionTemplate.execute(tx -> {
+                    rejected.clear();
+                    Map<Long, Incident> found = incidentRepository.findAllById(chunk.stream()
+                                    .map(i -> transitions.get(i).getIdIncident())
+                                    .collect(Collectors.toSet()))
+                            .stream()
+                            .collect(Collectors.toMap(Incident::getIdIncident, Function.identity()));
+                    Map<Long, Incident> changed = new LinkedHashMap<>();
+                    chunk.forEach(i -> {
+                        Incident incident = found.get(transitions.get(i).getIdIncident());
+                        if (incident != null) {
+                            try {
+                                incidentService.applyStatus(incident, transitions.get(i).getStatus());
+                                changed.put(incident.getIdIncident(), incident);
+                            } catch (InvalidStatusTransitionException e) {
+                                rejected.put(i, e.getMessage());
+                            }
+                        }
+                    });
+                    // Flush antes dos eventos: a versão e o updatedAt registrados são os gravados.
+                    // Várias transições do mesmo incidente no chunk viram um único UPDATE e um único evento.
+                    incidentRepository.flush();
+                    eventLog.appendAll(IncidentEventType.STATUS_CHANGED,
+                            changed.values().stream().map(incidentService::mapToDTO).toList());
+                    return found;
+                });
+                for (Integer i : chunk) {
+                    Long id = transitions.get(i).getIdIncident();
+                    Incident incident = updated.get(id);
+                    if (incident == null) {
+                        results[i] = failure(i, HttpStatus.NOT_FOUND, "Incident not found with id: " + id);
+                    } else if (rejected.containsKey(i)) {
+                        results[i] = failure(i, HttpStatus.UNPROCESSABLE_ENTITY, rejected.get(i));
+                    } else {
+                        results[i] = success(i, HttpStatus.OK, IncidentEventType.STATUS_CHANGED, incident);
+                    }
+                }
+            } catch (DataAccessException | TransactionException e) {
+                for (Integer i : chunk) {
+                    StatusTransitionDTO transition = transitions.get(i);
+                    try {
+                        results[i] = new BatchItemResultDTO(i, HttpStatus.OK.value(),
+                                incidentService.updateStatus(transition.getIdIncident(), transition.getStatus()), null);
+                    } catch (ResourceNotFoundException ex) {
+                        results[i] = failure(i, HttpStatus.NOT_FOUND, ex.getMessage());
+                    } catch (InvalidStatusTransitionException ex) {
+                        results[i] = failure(i, HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+                    } catch (IncidentConflictException ex) {
+                        results[i] = failure(i, HttpStatus.CONFLICT, ex.getMessage());
+                    } catch (DataAccessException | TransactionException ex) {
+                        results[i] = failure(i, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        return summarize(results);
+    }
+
+    private String validate(IncidentRequestDTO request) {
+        if (request == null) {
+            return "Incident is required";
+        }
+        Set<ConstraintViolation<IncidentRequestDTO>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < indexes.size(); start += chunkSize) {
+            chunks.add(indexes.subList(start, Math.min(start + chunkSize, indexes.size())));
+        }
+        return chunks;
+    }
+
+    // Só publica nas estruturas em memória depois do commit do chunk
+    private BatchItemResultDTO success(int index, HttpStatus status, IncidentEventType type, Incident incident) {
+        return new BatchItemResultDTO(index, status.value(),
+                incidentService.publish(incidentService.mapToDTO(incident), type), null);
+    }
+
+    private BatchItemResultDTO failure(int index, HttpStatus status, String error) {
+        return new BatchItemResultDTO(index, status.value(), null, error);
+    }
+
+    private BatchResultDTO summarize(BatchItemResultDTO[] results) {
+        int succeeded = (int) Arrays.stream(results).filter(result -> result.getError() == null).count();
+        return new BatchResultDTO(succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+}
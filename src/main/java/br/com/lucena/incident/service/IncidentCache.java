@@ -0,0 +1,71 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.CacheStatsDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class IncidentCache {
+
+    private final Cache<Long, IncidentResponseDTO> cache;
+
+    public IncidentCache(@Value("${incident.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${incident.cache.ttl:PT1M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // O carregamento é atômico por chave: um put/evict concorrente espera o loader terminar
+    // e sobrescreve o resultado, então uma leitura lenta nunca reinstala um valor antigo
+    public IncidentResponseDTO get(Long id, Function<Long, IncidentResponseDTO> loader) {
+        return cache.get(id, loader);
+    }
+
+    // Busca em lote: as chaves ausentes são carregadas numa única chamada ao loader.
+    // Ids que o loader não devolve (excluídos) simplesmente ficam fora do resultado.
+    public Map<Long, IncidentResponseDTO> getAll(Collection<Long> ids,
+                                                 Function<List<Long>, List<IncidentResponseDTO>> loader) {
+        return cache.getAll(ids, missing -> loader.apply(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(IncidentResponseDTO::getIdIncident, Function.identity())));
+    }
+
+    // Nunca substitui uma versão mais nova por uma mais antiga quando duas escritas publicam fora de ordem
+    public void put(IncidentResponseDTO incident) {
+        cache.asMap().merge(incident.getIdIncident(), incident,
+                (current, candidate) -> isOlder(candidate, current) ? current : candidate);
+    }
+
+    static boolean isOlder(IncidentResponseDTO candidate, IncidentResponseDTO current) {
+        return candidate.getVersion() != null && current.getVersion() != null
+                && candidate.getVersion() < current.getVersion();
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount(),
+                stats.hitRate()
+        );
+    }
+}
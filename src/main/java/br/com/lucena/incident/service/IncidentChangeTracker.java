@@ -0,0 +1,60 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.model.IncidentStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Contadores de mudança que alimentam os ETags das listagens: um global, avançado por toda
+// escrita, e um por status, avançado quando uma escrita toca incidentes daquele status.
+// São avançados depois do commit e das estruturas em memória, então quem lê o contador antes
+// de montar a resposta nunca marca um conteúdo antigo com a versão nova. O prefixo aleatório
+// de cada execução impede que um ETag de antes de um restart case com a contagem reiniciada.
+// Os ETags são fracos: identificam o estado, não os bytes (a resposta pode sair em gzip, e uma
+// escrita concorrente à leitura pode aparecer sob a versão anterior), e o If-None-Match de um
+// GET já usa a comparação fraca.
+@Component
+public class IncidentChangeTracker {
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong global = new AtomicLong();
+    private final Map<IncidentStatus, AtomicLong> byStatus = new EnumMap<>(IncidentStatus.class);
+
+    public IncidentChangeTracker() {
+        for (IncidentStatus status : IncidentStatus.values()) {
+            byStatus.put(status, new AtomicLong());
+        }
+    }
+
+    // Criação, edição, ocorrências, exclusão ou arquivamento: o status não muda
+    public void changed(IncidentStatus status) {
+        byStatus.get(status).incrementAndGet();
+        global.incrementAndGet();
+    }
+
+    // Mudança de status: o status anterior não é conhecido depois do UPDATE condicional,
+    // então avança também todos os que podem levar ao novo
+    public void statusChanged(IncidentStatus status) {
+        status.predecessors().forEach(from -> byStatus.get(from).incrementAndGet());
+        changed(status);
+    }
+
+    public long version() {
+        return global.get();
+    }
+
+    public long version(IncidentStatus status) {
+        return byStatus.get(status).get();
+    }
+
+    public String etag() {
+        return "W/\"" + epoch + "-" + version() + "\"";
+    }
+
+    public String etag(IncidentStatus status) {
+        return "W/\"" + epoch + "-" + status.name().toLowerCase() + "-" + version(status) + "\"";
+    }
+}
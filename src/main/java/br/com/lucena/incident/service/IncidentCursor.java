@@ -0,0 +1,39 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Posição de keyset em (createdAt, idIncident), serializada como token opaco seguro para URL
+public record IncidentCursor(LocalDateTime createdAt, Long idIncident) {
+
+    private static final char SEPARATOR = '|';
+
+    public static IncidentCursor of(IncidentResponseDTO incident) {
+        return new IncidentCursor(incident.getCreatedAt(), incident.getIdIncident());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + idIncident;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static IncidentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + token);
+            }
+            return new IncidentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Deduplicação de criações em tempestades de alertas. Cada chave (dedupKey ou hash de
+// nome e descrição) abre uma janela em memória que dura enquanto chegarem repetições;
+// só a primeira criação vai ao banco, as demais esperam o id dela e viram ocorrências.
+// As contagens ficam pendentes aqui e são gravadas em lote por IncidentService.flushOccurrences,
+// então o volume de escrita fica limitado a uma atualização por chave a cada intervalo.
+@Component
+public class IncidentDeduplicator {
+
+    private final boolean enabled;
+    private final Cache<String, Window> windows;
+    // Janela de cada incidente, para encerrá-la quando ele deixa de estar aberto
+    private final Map<Long, Window> byIncident = new ConcurrentHashMap<>();
+    // Janelas com ocorrências ainda não gravadas, inclusive as já expiradas ou encerradas
+    private final Set<Window> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public IncidentDeduplicator(@Value("${incident.dedup.enabled:false}") boolean enabled,
+                                @Value("${incident.dedup.window:PT10M}") Duration window,
+                                @Value("${incident.dedup.max-keys:10000}") long maxKeys) {
+        this.enabled = enabled;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(window)
+                .<String, Window>evictionListener((key, expired, cause) -> {
+                    if (expired != null && expired.idIncident() != null) {
+                        byIncident.remove(expired.idIncident(), expired);
+                    }
+                })
+                .build();
+    }
+
+    // Cria pelo creator na primeira ocorrência da chave dentro da janela; nas seguintes
+    // só conta e devolve o id do incidente existente, sem tocar no banco
+    public Outcome createOrCoalesce(IncidentRequestDTO request, Supplier<IncidentResponseDTO> creator) {
+        if (!enabled) {
+            IncidentResponseDTO created = creator.get();
+            return new Outcome(created, created.getIdIncident(), 1);
+        }
+        String key = keyOf(request);
+        while (true) {
+            Window window = windows.get(key, Window::new);
+            if (window.claimed.compareAndSet(false, true)) {
+                IncidentResponseDTO created;
+                try {
+                    created = creator.get();
+                } catch (RuntimeException e) {
+                    // Quem estava esperando tenta de novo e um deles passa a ser o criador
+                    windows.asMap().remove(key, window);
+                    window.incident.completeExceptionally(e);
+                    throw e;
+                }
+                byIncident.put(created.getIdIncident(), window);
+                window.incident.complete(created.getIdIncident());
+                return new Outcome(created, created.getIdIncident(), 1);
+            }
+            try {
+                window.incident.join();
+            } catch (CompletionException e) {
+                continue;
+            }
+            if (window.released) {
+                windows.asMap().remove(key, window);
+                continue;
+            }
+            long occurrences = window.occurrences.incrementAndGet();
+            if (window.pending.getAndIncrement() == 0) {
+                dirty.add(window);
+            }
+            return new Outcome(null, window.idIncident(), occurrences);
+        }
+    }
+
+    // Incidente resolvido, fechado ou excluído: as próximas repetições abrem um incidente novo
+    public void observe(IncidentResponseDTO incident) {
+        IncidentStatus status = incident.getStatus();
+        if (status != IncidentStatus.OPEN && status != IncidentStatus.IN_PROGRESS) {
+            release(incident.getIdIncident());
+        }
+    }
+
+    public void release(Long idIncident) {
+        Window window = byIncident.remove(idIncident);
+        if (window != null) {
+            window.released = true;
+            windows.asMap().remove(window.key, window);
+        }
+    }
+
+    // Ocorrências pendentes por incidente desde a última chamada; zera os contadores
+    public Map<Long, Long> drainPending() {
+        Map<Long, Long> pending = new HashMap<>();
+        for (Iterator<Window> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            Window window = iterator.next();
+            // Sai do conjunto antes de zerar: uma ocorrência concorrente ou entra nesta
+            // contagem ou marca a janela de novo para o próximo flush
+            iterator.remove();
+            long delta = window.pending.getAndSet(0);
+            if (delta > 0) {
+                pending.merge(window.idIncident(), delta, Long::sum);
+            }
+        }
+        return pending;
+    }
+
+    // Devolve contagens que não puderam ser gravadas para a próxima tentativa. Se a janela já
+    // foi encerrada ou expirou, a contagem vai para uma janela avulsa que só existe até o flush
+    public void requeue(Map<Long, Long> pending) {
+        pending.forEach((idIncident, delta) -> {
+            Window window = byIncident.get(idIncident);
+            if (window == null) {
+                dirty.add(Window.detached(idIncident, delta));
+            } else if (window.pending.getAndAdd(delta) == 0) {
+                dirty.add(window);
+            }
+        });
+    }
+
+    static String keyOf(IncidentRequestDTO request) {
+        if (request.getDedupKey() != null && !request.getDedupKey().isBlank()) {
+            return "key:" + request.getDedupKey();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(request.getName()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.getDescription()).getBytes(StandardCharsets.UTF_8));
+            return "hash:" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // created é nulo quando a criação foi agregada a um incidente existente
+    public record Outcome(IncidentResponseDTO created, Long idIncident, long occurrences) {}
+
+    private static final class Window {
+
+        private final String key;
+        private final CompletableFuture<Long> incident = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final AtomicLong occurrences = new AtomicLong(1);
+        private final AtomicLong pending = new AtomicLong();
+        private volatile boolean released;
+
+        private Window(String key) {
+            this.key = key;
+        }
+
+        private static Window detached(Long idIncident, long pending) {
+            Window window = new Window(null);
+            window.claimed.set(true);
+            window.incident.complete(idIncident);
+            window.pending.set(pending);
+            window.released = true;
+            return window;
+        }
+
+        // Nulo enquanto a criação não terminou ou se ela falhou
+        private Long idIncident() {
+            return incident.isDone() && !incident.isCompletedExceptionally() ? incident.getNow(null) : null;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentEventDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentEventType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Fan-out em processo dos eventos de incidente para assinantes SSE.
+// Publicar nunca faz I/O: o evento entra num buffer limitado por assinante e o envio
+// acontece numa thread virtual por assinante, então um cliente lento não atrasa
+// as escritas nem os demais clientes. Quando o buffer enche ele é coalescido por
+// incidente (só o estado mais recente de cada um importa); se ainda assim estourar,
+// o assinante é encerrado e reconecta com Last-Event-ID.
+@Component
+public class IncidentEventBroadcaster {
+
+    static final String RESET_EVENT = "reset";
+
+    private final int bufferSize;
+    private final int replaySize;
+    private final Duration timeout;
+    // Ids de evento são "<epoch>-<sequência>": um Last-Event-ID de outra execução
+    // do processo é reconhecido e responde com reset em vez de um replay errado
+    private final long epoch = System.currentTimeMillis();
+    private long sequence;
+    // Últimos eventos publicados, para retomar a partir do Last-Event-ID sem ir ao banco
+    private final ArrayDeque<Event> replay;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "incident-events-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public IncidentEventBroadcaster(@Value("${incident.events.buffer-size:256}") int bufferSize,
+                                    @Value("${incident.events.replay-size:1024}") int replaySize,
+                                    @Value("${incident.events.timeout:PT30M}") Duration timeout,
+                                    @Value("${incident.events.heartbeat:PT15S}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeout = timeout;
+        this.replay = new ArrayDeque<>(replaySize);
+        long period = heartbeat.toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = subscribe(lastEventId, new Sink() {
+            @Override
+            public void send(String id, String name, Object data) throws IOException {
+                SseEmitter.SseEventBuilder event = SseEmitter.event().id(id).data(data, MediaType.APPLICATION_JSON);
+                emitter.send(name == null ? event : event.name(name));
+            }
+
+            @Override
+            public void heartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            }
+
+            @Override
+            public void complete() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
+    }
+
+    // Registro e replay acontecem sob o mesmo lock da publicação: nenhum evento
+    // é perdido ou duplicado entre o replay e o início do fluxo ao vivo
+    public synchronized Subscription subscribe(String lastEventId, Sink sink) {
+        Subscription subscription = new Subscription(sink);
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            Long after = parseSequence(lastEventId);
+            Event oldest = replay.peekFirst();
+            if (after == null || after > sequence || (oldest != null && after < oldest.sequence() - 1)
+                    || (oldest == null && after < sequence)) {
+                // Não dá para garantir continuidade: o cliente deve recarregar pelo REST
+                subscription.reset(id(sequence));
+            } else {
+                for (Event event : replay) {
+                    if (event.sequence() > after) {
+                        subscription.offer(event);
+                    }
+                }
+            }
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void publish(IncidentEventType type, IncidentResponseDTO incident) {
+        publish(type, incident.getIdIncident(), incident);
+    }
+
+    public void deleted(Long idIncident) {
+        publish(IncidentEventType.DELETED, idIncident, null);
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    private synchronized void publish(IncidentEventType type, Long idIncident, IncidentResponseDTO incident) {
+        Event event = new Event(++sequence, idIncident,
+                new IncidentEventDTO(type, idIncident, incident, LocalDateTime.now()));
+        if (replay.size() == replaySize) {
+            replay.pollFirst();
+        }
+        replay.addLast(event);
+        // offer só mexe no buffer em memória; o envio é assíncrono
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    private void heartbeat() {
+        subscriptions.forEach(Subscription::heartbeat);
+    }
+
+    private String id(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private Long parseSequence(String lastEventId) {
+        int separator = lastEventId.indexOf('-');
+        try {
+            if (separator < 0 || Long.parseLong(lastEventId.substring(0, separator)) != epoch) {
+                return null;
+            }
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscriptions.forEach(Subscription::close);
+        senders.shutdown();
+    }
+
+    // Destino dos eventos de um assinante; o SseEmitter em produção
+    public interface Sink {
+        void send(String id, String name, Object data) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void complete();
+    }
+
+    private record Event(long sequence, Long idIncident, IncidentEventDTO payload) {}
+
+    public final class Subscription {
+
+        private final Sink sink;
+        // Pendentes em ordem de sequência; todos os eventos são entregues enquanto o cliente acompanha
+        private final ArrayDeque<Event> pending = new ArrayDeque<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private String resetId;
+        private boolean heartbeatDue;
+        private volatile boolean closed;
+
+        private Subscription(Sink sink) {
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        private void offer(Event event) {
+            synchronized (pending) {
+                if (closed) {
+                    return;
+                }
+                pending.addLast(event);
+                if (pending.size() > bufferSize) {
+                    coalesce();
+                }
+                if (pending.size() > bufferSize) {
+                    // Nem coalescendo o cliente acompanha: encerra para que ele retome pelo Last-Event-ID
+                    pending.clear();
+                    closed = true;
+                }
+            }
+            schedule();
+        }
+
+        // Mantém só o último evento de cada incidente, ainda em ordem de sequência
+        private void coalesce() {
+            LinkedHashMap<Long, Event> latest = new LinkedHashMap<>();
+            for (Event event : pending) {
+                latest.remove(event.idIncident());
+                latest.put(event.idIncident(), event);
+            }
+            pending.clear();
+            pending.addAll(latest.values());
+        }
+
+        private void reset(String id) {
+            synchronized (pending) {
+                resetId = id;
+            }
+            schedule();
+        }
+
+        private void heartbeat() {
+            synchronized (pending) {
+                if (!pending.isEmpty()) {
+                    return;
+                }
+                heartbeatDue = true;
+            }
+            schedule();
+        }
+
+        private void close() {
+            closed = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Executor já encerrado
+                    sending.set(false);
+                }
+            }
+        }
+
+        // Uma única thread de envio por assinante por vez, então a ordem dos eventos é preservada
+        private void drain() {
+            try {
+                while (true) {
+                    String reset;
+                    Event next = null;
+                    boolean beat;
+                    synchronized (pending) {
+                        if (closed) {
+                            break;
+                        }
+                        reset = resetId;
+                        resetId = null;
+                        beat = heartbeatDue;
+                        heartbeatDue = false;
+                        if (reset == null) {
+                            next = pending.pollFirst();
+                        }
+                    }
+                    if (reset != null) {
+                        sink.send(reset, RESET_EVENT, Map.of("reason", "Last-Event-ID is no longer available, reload incidents"));
+                    } else if (next != null) {
+                        sink.send(id(next.sequence()), null, next.payload());
+                    } else if (beat) {
+                        sink.heartbeat();
+                    } else {
+                        break;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Cliente desconectado
+                closed = true;
+            } finally {
+                sending.set(false);
+            }
+
+            if (closed) {
+                subscriptions.remove(this);
+                sink.complete();
+                return;
+            }
+            // Um offer pode ter chegado entre o último poll e a liberação da flag
+            synchronized (pending) {
+                if (pending.isEmpty() && resetId == null && !heartbeatDue) {
+                    return;
+                }
+            }
+            schedule();
+        }
+    }
+}
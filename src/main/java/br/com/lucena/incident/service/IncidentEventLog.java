@@ -0,0 +1,138 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentHistoryEntryDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentEvent;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Histórico append-only das mutações de incidentes. As escritas chamam append dentro da
+// própria transação, então o evento e a mudança são gravados ou descartados juntos; os
+// INSERT ficam para o flush do commit e entram em batch JDBC (em lote, um por chunk).
+// Cada evento guarda só o que mudou, e a cada snapshot-every versões o estado completo,
+// então reconstruir um instante lê no máximo snapshot-every eventos. O contador de
+// ocorrências não faz parte do histórico.
+@Component
+public class IncidentEventLog {
+
+    private IncidentEventRepository eventRepository;
+    private int snapshotEvery;
+
+    @Autowired
+    public IncidentEventLog(IncidentEventRepository eventRepository,
+                            @Value("${incident.history.snapshot-every:20}") int snapshotEvery) {
+        this.eventRepository = eventRepository;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+    }
+
+    // Deve ser chamado dentro da transação da escrita, com o estado já gravado
+    public void append(IncidentEventType type, IncidentResponseDTO incident) {
+        eventRepository.save(toEvent(type, incident));
+    }
+
+    public void appendAll(IncidentEventType type, List<IncidentResponseDTO> incidents) {
+        eventRepository.saveAll(incidents.stream().map(incident -> toEvent(type, incident)).toList());
+    }
+
+    // Importação: eventos de outro banco, gravados como estão (com ids novos)
+    public void restore(List<IncidentEvent> events) {
+        eventRepository.saveAll(events);
+    }
+
+    public void deleted(Long idIncident, Long lastVersion) {
+        long version = lastVersion == null ? 0 : lastVersion + 1;
+        eventRepository.save(new IncidentEvent(null, idIncident, version, IncidentEventType.DELETED, false,
+                LocalDateTime.now(), null, null, null, null, null));
+    }
+
+    // Último evento gravado de cada incidente que já tem histórico (inclusive excluídos)
+    public Map<Long, IncidentEvent> latest(Collection<Long> idIncidents) {
+        return eventRepository.findLatestByIdIncidentIn(idIncidents).stream()
+                .collect(Collectors.toMap(IncidentEvent::getIdIncident, Function.identity()));
+    }
+
+    // Eventos em ordem de versão, com o status antes/depois de cada um resolvido pelo replay
+    public List<IncidentHistoryEntryDTO> history(Long idIncident) {
+        List<IncidentHistoryEntryDTO> history = new ArrayList<>();
+        IncidentStatus status = null;
+        LocalDateTime closedAt = null;
+        for (IncidentEvent event : eventRepository.findByIdIncidentOrderByVersionAsc(idIncident)) {
+            IncidentStatus previous = status;
+            if (event.isSnapshot() || event.getType() == IncidentEventType.STATUS_CHANGED) {
+                status = event.getStatus();
+                closedAt = event.getClosedAt();
+            }
+            boolean textChanged = event.getType() == IncidentEventType.CREATED || event.getType() == IncidentEventType.UPDATED;
+            history.add(new IncidentHistoryEntryDTO(event.getVersion(), event.getType(), event.getOccurredAt(),
+                    event.getType() == IncidentEventType.STATUS_CHANGED ? previous : null,
+                    event.getType() == IncidentEventType.DELETED ? null : status,
+                    textChanged ? event.getName() : null,
+                    textChanged ? event.getDescription() : null,
+                    event.getType() == IncidentEventType.DELETED ? null : closedAt));
+        }
+        return history;
+    }
+
+    // Estado do incidente no instante pedido: último snapshot até ali mais os eventos seguintes.
+    // Vazio se o incidente ainda não existia, já tinha sido excluído ou é anterior ao log.
+    public Optional<IncidentResponseDTO> stateAt(Long idIncident, LocalDateTime at) {
+        IncidentResponseDTO state = null;
+        for (IncidentEvent event : eventRepository.findReplayUntil(idIncident, at)) {
+            if (event.isSnapshot()) {
+                state = new IncidentResponseDTO(idIncident, event.getName(), event.getDescription(),
+                        event.getStatus(), event.getCreatedAt(), event.getOccurredAt(), event.getClosedAt(),
+                        event.getVersion(), null);
+                continue;
+            }
+            switch (event.getType()) {
+                case UPDATED -> {
+                    state.setName(event.getName());
+                    state.setDescription(event.getDescription());
+                }
+                case STATUS_CHANGED -> {
+                    state.setStatus(event.getStatus());
+                    state.setClosedAt(event.getClosedAt());
+                }
+                case DELETED -> state = null;
+                default -> {
+                }
+            }
+            if (state == null) {
+                break;
+            }
+            state.setUpdatedAt(event.getOccurredAt());
+            state.setVersion(event.getVersion());
+        }
+        return Optional.ofNullable(state);
+    }
+
+    private IncidentEvent toEvent(IncidentEventType type, IncidentResponseDTO incident) {
+        long version = incident.getVersion() == null ? 0 : incident.getVersion();
+        LocalDateTime occurredAt = incident.getUpdatedAt() != null ? incident.getUpdatedAt() : LocalDateTime.now();
+        if (type == IncidentEventType.CREATED || version % snapshotEvery == 0) {
+            return new IncidentEvent(null, incident.getIdIncident(), version, type, true, occurredAt,
+                    incident.getName(), incident.getDescription(), incident.getStatus(),
+                    incident.getCreatedAt(), incident.getClosedAt());
+        }
+        return switch (type) {
+            case UPDATED -> new IncidentEvent(null, incident.getIdIncident(), version, type, false, occurredAt,
+                    incident.getName(), incident.getDescription(), null, null, null);
+            case STATUS_CHANGED -> new IncidentEvent(null, incident.getIdIncident(), version, type, false, occurredAt,
+                    null, null, incident.getStatus(), null, incident.getClosedAt());
+            default -> throw new IllegalArgumentException("Unexpected event type for a saved incident: " + type);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.model.Incident;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Ids de incidente alocados antes do INSERT, pelo mesmo gerador pooled que o JPA usa
+// (incidents_seq em blocos de 50): só uma chamada a cada bloco vai ao banco e os ids
+// nunca colidem com os dos saves feitos pelo repositório.
+@Component
+public class IncidentIdAllocator {
+
+    private static final String SEQUENCE = "incidents_seq";
+
+    private SessionFactoryImplementor sessionFactory;
+    private SequenceStyleGenerator generator;
+    private IncidentIdOptimizer optimizer;
+
+    @Autowired
+    public IncidentIdAllocator(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.generator = (SequenceStyleGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Incident.class)
+                .getGenerator();
+        this.optimizer = (IncidentIdOptimizer) generator.getOptimizer();
+    }
+
+    public Long nextId() {
+        // A sessão só pega uma conexão quando o bloco em memória acaba
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) generator.generate((SharedSessionContractImplementor) session, null);
+        }
+    }
+
+    // Depois de gravar ids explícitos (importação): garante que o gerador só entregue ids acima
+    // de idIncident. Reinicia incidents_seq se ela ainda não passou dele e descarta o bloco em
+    // memória, tudo sob a trava do otimizador: nenhum id do bloco antigo é entregue no meio.
+    public void advancePast(long idIncident) {
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        optimizer.restart(() -> {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                session.doWork(connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        long next;
+                        try (ResultSet result = statement.executeQuery(
+                                dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE))) {
+                            result.next();
+                            next = result.getLong(1);
+                        }
+                        if (next <= idIncident) {
+                            statement.execute(restartSql(dialect, idIncident + 1));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    // Mesmo comando nos bancos suportados (H2 e PostgreSQL); nos demais a importação falha em vez
+    // de deixar a sequência para trás dos ids gravados
+    private static String restartSql(Dialect dialect, long next) {
+        if (dialect instanceof H2Dialect || dialect instanceof PostgreSQLDialect) {
+            return "ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + next;
+        }
+        throw new IllegalStateException("Restarting " + SEQUENCE + " is not supported on "
+                + dialect.getClass().getSimpleName());
+    }
+}
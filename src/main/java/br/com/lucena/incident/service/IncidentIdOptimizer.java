@@ -0,0 +1,69 @@
+package br.com.lucena.incident.service;
+
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Otimizador pooled-lo de incidents_seq: cada valor lido da sequência abre o bloco
+// [valor, valor + incrementSize) em memória. Ao contrário do PooledOptimizer do Hibernate, o bloco
+// pode ser descartado sob a mesma trava que entrega os ids (restart), então quem reinicia a
+// sequência não disputa com os saves do repositório nem com IncidentIdAllocator.nextId.
+// Configurado em Incident pelo parâmetro optimizer do gerador.
+public class IncidentIdOptimizer implements Optimizer {
+
+    private final int incrementSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private IntegralDataTypeHolder lastSourceValue;
+    private IntegralDataTypeHolder value;
+    private IntegralDataTypeHolder upperLimit;
+
+    // Assinatura exigida pelo Hibernate, que instancia o otimizador por reflexão
+    public IncidentIdOptimizer(Class<?> returnClass, int incrementSize) {
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        lock.lock();
+        try {
+            if (lastSourceValue == null || !value.lt(upperLimit)) {
+                lastSourceValue = callback.getNextValue();
+                upperLimit = lastSourceValue.copy().add(incrementSize);
+                value = lastSourceValue.copy();
+            }
+            return (Serializable) value.makeValueThenIncrement();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Roda a ação com a entrega de ids bloqueada e descarta o bloco em memória: o próximo id
+    // vem de um valor novo da sequência
+    public void restart(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+            lastSourceValue = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+}
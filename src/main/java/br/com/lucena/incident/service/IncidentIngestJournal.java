@@ -0,0 +1,237 @@
+package br.com.lucena.incident.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Journal local das criações aceitas pela ingestão assíncrona e ainda não gravadas no banco.
+// Cada registro é [tamanho][CRC32][id, nome, descrição, recebido em] e append só retorna depois
+// do fsync; quem chega enquanto outro fsync está em andamento normalmente já é coberto por ele
+// (group commit). Os arquivos são segmentos: um segmento cheio é selado e apagado quando todas
+// as suas entradas estiverem no banco, e o segmento atual é zerado sempre que fica sem pendências.
+final class IncidentIngestJournal implements Closeable {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    // Segmentos deixados por uma execução anterior, lidos uma única vez por recover
+    private final List<Path> leftover;
+    private long nextSegment;
+    private Segment current;
+
+    IncidentIngestJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        try (Stream<Path> files = Files.list(directory)) {
+            this.leftover = files.filter(path -> segmentNumber(path) >= 0)
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        this.nextSegment = leftover.isEmpty() ? 0 : segmentNumber(leftover.get(leftover.size() - 1)) + 1;
+    }
+
+    // Entradas dos segmentos da execução anterior, na ordem em que foram aceitas. Um registro
+    // truncado ou corrompido é uma escrita interrompida antes do fsync, nunca confirmada ao
+    // cliente, e encerra a leitura do segmento.
+    synchronized List<Recovered> recover() throws IOException {
+        List<Recovered> recovered = new ArrayList<>();
+        for (Path path : leftover) {
+            List<Entry> entries = read(path);
+            Segment segment = new Segment(path, null);
+            segment.pending = entries.size();
+            if (entries.isEmpty()) {
+                Files.deleteIfExists(path);
+            }
+            entries.forEach(entry -> recovered.add(new Recovered(entry, segment)));
+        }
+        leftover.clear();
+        return recovered;
+    }
+
+    Segment append(Entry entry) throws IOException {
+        ByteBuffer frame = encode(entry);
+        Segment segment;
+        long end;
+        synchronized (this) {
+            if (current == null) {
+                current = open();
+            } else if (current.size >= segmentBytes) {
+                // Segmento cheio: sai de uso e é apagado pelo committed da última entrada
+                if (current.pending == 0) {
+                    current.delete();
+                }
+                current = open();
+            }
+            segment = current;
+            try {
+                while (frame.hasRemaining()) {
+                    segment.channel.write(frame);
+                }
+            } catch (IOException e) {
+                abandon(segment);
+                throw e;
+            }
+            segment.size += frame.limit();
+            segment.pending++;
+            end = segment.size;
+        }
+        try {
+            segment.force(end);
+        } catch (IOException e) {
+            abandon(segment);
+            throw e;
+        }
+        return segment;
+    }
+
+    // Depois de uma falha de escrita o segmento pode ter um registro pela metade, que esconderia
+    // da recuperação tudo o que viesse depois: as próximas entradas vão para um segmento novo
+    private synchronized void abandon(Segment segment) {
+        if (segment == current) {
+            current = null;
+        }
+    }
+
+    // Entradas do segmento já gravadas no banco
+    synchronized void committed(Segment segment, int count) throws IOException {
+        segment.pending -= count;
+        if (segment.pending > 0) {
+            return;
+        }
+        if (segment == current) {
+            segment.truncate();
+        } else {
+            segment.delete();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.channel.close();
+            if (current.pending == 0) {
+                Files.deleteIfExists(current.path);
+            }
+            current = null;
+        }
+    }
+
+    private Segment open() throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, nextSegment++, SUFFIX));
+        return new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+
+    private static ByteBuffer encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(entry.idIncident());
+            out.writeUTF(entry.name());
+            out.writeUTF(entry.description());
+            out.writeUTF(entry.receivedAt().toString());
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(Integer.BYTES * 2 + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    private static List<Entry> read(Path path) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (buffer.remaining() >= Integer.BYTES * 2) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                entries.add(new Entry(in.readLong(), in.readUTF(), in.readUTF(), LocalDateTime.parse(in.readUTF())));
+            }
+        }
+        return entries;
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    record Entry(Long idIncident, String name, String description, LocalDateTime receivedAt) {}
+
+    record Recovered(Entry entry, Segment segment) {}
+
+    static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        // Escritos sob o lock do journal; size também é lido pelo fsync
+        private volatile long size;
+        private int pending;
+        // Protegido pelo lock do próprio segmento
+        private long forced;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        // Um fsync por vez, cobrindo tudo o que já foi escrito quando ele começou; quem esperava
+        // o lock normalmente encontra sua escrita já coberta
+        private synchronized void force(long position) throws IOException {
+            if (forced >= position) {
+                return;
+            }
+            long covered = size;
+            channel.force(false);
+            forced = Math.max(position, covered);
+        }
+
+        private synchronized void truncate() throws IOException {
+            channel.truncate(0);
+            channel.position(0);
+            size = 0;
+            forced = 0;
+        }
+
+        private void delete() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.IngestQueueFullException;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Ingestão assíncrona das criações (incident.ingest.async=true). O POST recebe um id pré-alocado,
+// grava a criação no journal local com fsync e responde 202; uma única thread escritora esvazia a
+// fila em lotes de até batch-size, cada lote numa transação com um INSERT em batch JDBC e os
+// eventos do histórico (group commit). A vaga na fila é reservada antes do journal, então uma
+// criação recusada com 429 nunca reaparece na recuperação, e tudo o que foi confirmado com 202
+// está no journal até ser gravado no banco. Leituras de um id ainda na fila esperam a gravação.
+@Component
+public class IncidentIngestQueue {
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(5);
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private IncidentRepository incidentRepository;
+    private IncidentService incidentService;
+    private IncidentEventLog eventLog;
+    private IncidentDeduplicator deduplicator;
+    private IncidentIdAllocator idAllocator;
+    private TransactionTemplate transactionTemplate;
+    private boolean enabled;
+    private int batchSize;
+    private Duration readWait;
+    private Semaphore capacity;
+    private IncidentIngestJournal journal;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    // Criações aceitas e ainda não gravadas, para as leituras esperarem por elas
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public IncidentIngestQueue(IncidentRepository incidentRepository,
+                               IncidentService incidentService,
+                               IncidentEventLog eventLog,
+                               IncidentDeduplicator deduplicator,
+                               IncidentIdAllocator idAllocator,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${incident.ingest.async:false}") boolean enabled,
+                               @Value("${incident.ingest.queue-capacity:10000}") int queueCapacity,
+                               @Value("${incident.ingest.batch-size:500}") int batchSize,
+                               @Value("${incident.ingest.read-wait:PT5S}") Duration readWait,
+                               @Value("${incident.ingest.journal-dir:./data/ingest}") Path journalDir,
+                               @Value("${incident.ingest.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        this.incidentRepository = incidentRepository;
+        this.incidentService = incidentService;
+        this.eventLog = eventLog;
+        this.deduplicator = deduplicator;
+        this.idAllocator = idAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.readWait = readWait;
+        this.capacity = new Semaphore(queueCapacity);
+        this.journal = enabled ? new IncidentIngestJournal(journalDir, segmentSize.toBytes()) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Reenfileira o que uma execução anterior confirmou e não chegou a gravar, depois inicia a escritora
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        List<IncidentIngestJournal.Recovered> recovered = journal.recover();
+        for (IncidentIngestJournal.Recovered entry : recovered) {
+            // Não ocupa vaga: o que já estava confirmado entra mesmo acima da capacidade
+            Pending recovering = new Pending(entry.entry(), entry.segment(), true);
+            pending.put(entry.entry().idIncident(), recovering);
+            queue.add(recovering);
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("incident-ingest-writer").daemon(true).start(this::drain);
+    }
+
+    // Criação pela fila; repetições dentro da janela de deduplicação continuam sendo agregadas
+    public IncidentResponseDTO submit(IncidentRequestDTO requestDTO) {
+        IncidentDeduplicator.Outcome outcome = deduplicator.createOrCoalesce(requestDTO, () -> enqueue(requestDTO));
+        if (outcome.created() != null) {
+            return outcome.created();
+        }
+        awaitWritten(outcome.idIncident());
+        return incidentService.coalesced(outcome);
+    }
+
+    // Espera, até read-wait, a gravação de um id ainda na fila; para os demais retorna na hora
+    public void awaitWritten(Long idIncident) {
+        Pending write = pending.get(idIncident);
+        if (write == null) {
+            return;
+        }
+        try {
+            write.written.get(readWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // A leitura segue e responde com o estado atual do banco
+        }
+    }
+
+    public int queued() {
+        return pending.size();
+    }
+
+    private IncidentResponseDTO enqueue(IncidentRequestDTO requestDTO) {
+        if (!running) {
+            // Ainda subindo ou já encerrando
+            throw new IngestQueueFullException("Ingestion is not accepting writes, retry later");
+        }
+        if (!capacity.tryAcquire()) {
+            throw new IngestQueueFullException("Ingestion queue is full, retry later");
+        }
+        try {
+            IncidentIngestJournal.Entry entry = new IncidentIngestJournal.Entry(idAllocator.nextId(),
+                    requestDTO.getName(), requestDTO.getDescription(), LocalDateTime.now());
+            Pending accepted = new Pending(entry, journal.append(entry), false);
+            pending.put(entry.idIncident(), accepted);
+            queue.add(accepted);
+            return toDTO(entry);
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!write(batch)) {
+                // Encerrando com o banco indisponível: o restante fica no journal para a próxima execução
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // Tenta até conseguir; só desiste durante o encerramento. Depois de uma falha o lote pode ter
+    // sido gravado (commit perdido na resposta), então as tentativas seguintes pulam os ids que já existem.
+    private boolean write(List<Pending> batch) {
+        List<Pending> remaining = batch;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<Pending> toInsert = attempt == 1 && !anyRecovered(batch) ? remaining : notYetWritten(remaining);
+                transactionTemplate.executeWithoutResult(tx -> {
+                    if (!toInsert.isEmpty()) {
+                        incidentRepository.insertAll(toInsert.stream().map(Pending::toIncident).toList());
+                        eventLog.appendAll(IncidentEventType.CREATED, toInsert.stream().map(Pending::dto).toList());
+                    }
+                });
+                break;
+            } catch (RuntimeException e) {
+                if (!running && attempt >= SHUTDOWN_ATTEMPTS) {
+                    batch.forEach(failed -> failed.written.completeExceptionally(e));
+                    return false;
+                }
+                backoff(attempt);
+            }
+        }
+        completed(batch);
+        return true;
+    }
+
+    private List<Pending> notYetWritten(List<Pending> batch) {
+        Set<Long> existing = new HashSet<>();
+        incidentRepository.findDtosByIdIn(batch.stream().map(write -> write.entry.idIncident()).toList())
+                .forEach(incident -> existing.add(incident.getIdIncident()));
+        return batch.stream().filter(write -> !existing.contains(write.entry.idIncident())).toList();
+    }
+
+    private static boolean anyRecovered(List<Pending> batch) {
+        return batch.stream().anyMatch(write -> write.recovered);
+    }
+
+    private void completed(List<Pending> batch) {
+        Map<IncidentIngestJournal.Segment, Integer> bySegment = new LinkedHashMap<>();
+        int reserved = 0;
+        for (Pending write : batch) {
+            incidentService.publish(write.dto(), IncidentEventType.CREATED);
+            pending.remove(write.entry.idIncident());
+            bySegment.merge(write.segment, 1, Integer::sum);
+            reserved += write.recovered ? 0 : 1;
+        }
+        try {
+            for (Map.Entry<IncidentIngestJournal.Segment, Integer> segment : bySegment.entrySet()) {
+                journal.committed(segment.getKey(), segment.getValue());
+            }
+        } catch (IOException e) {
+            // As entradas já estão no banco; na recuperação elas são reconhecidas e puladas
+        }
+        capacity.release(reserved);
+        // Por último: quem esperava a gravação já encontra a vaga e o journal liberados
+        batch.forEach(write -> write.written.complete(null));
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(Math.min(MAX_BACKOFF.toMillis(), 100L << Math.min(attempt - 1, 6)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Escritora termina o que está na fila antes de o contexto fechar o banco
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        writer.join();
+        journal.close();
+    }
+
+    private static IncidentResponseDTO toDTO(IncidentIngestJournal.Entry entry) {
+        return new IncidentResponseDTO(entry.idIncident(), entry.name(), entry.description(), IncidentStatus.OPEN,
+                entry.receivedAt(), entry.receivedAt(), null, 0L, 1L);
+    }
+
+    private static final class Pending {
+
+        private final IncidentIngestJournal.Entry entry;
+        private final IncidentIngestJournal.Segment segment;
+        // Recuperadas do journal não ocupam vaga e podem já ter sido gravadas antes da queda
+        private final boolean recovered;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private Pending(IncidentIngestJournal.Entry entry, IncidentIngestJournal.Segment segment, boolean recovered) {
+            this.entry = entry;
+            this.segment = segment;
+            this.recovered = recovered;
+        }
+
+        private IncidentResponseDTO dto() {
+            return toDTO(entry);
+        }
+
+        private Incident toIncident() {
+            return new Incident(entry.idIncident(), entry.name(), entry.description(), IncidentStatus.OPEN,
+                    entry.receivedAt(), entry.receivedAt(), null, 1L, 0L);
+        }
+    }
+}
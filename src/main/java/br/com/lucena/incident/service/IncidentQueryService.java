@@ -0,0 +1,63 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentPageDTO;
+import br.com.lucena.incident.exception.InvalidFilterException;
+import br.com.lucena.incident.repository.IncidentFilter;
+import br.com.lucena.incident.repository.IncidentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Consulta composta de /api/incidents/query. Cada página vai ao banco numa única query keyset
+// compilada pela forma do filtro (IncidentRepositoryImpl.findFiltered). Páginas idênticas pedidas
+// de novo dentro do TTL (dashboards em polling) vêm de um cache curto: podem ficar até
+// incident.query.cache-ttl atrás das escritas. Só o miss abre transação (read-only, em findFiltered).
+@Service
+@Timed("incident.query")
+public class IncidentQueryService {
+
+    private IncidentRepository incidentRepository;
+    private Cache<PageKey, IncidentPageDTO> pages;
+
+    @Autowired
+    public IncidentQueryService(IncidentRepository incidentRepository,
+                                @Value("${incident.query.cache-ttl:PT5S}") Duration cacheTtl,
+                                @Value("${incident.query.cache-size:1000}") long cacheSize) {
+        this.incidentRepository = incidentRepository;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public IncidentPageDTO query(IncidentFilter filter, String cursor, int size) {
+        validate(filter);
+        int pageSize = Math.max(1, Math.min(size, IncidentService.MAX_PAGE_SIZE));
+        String position = cursor == null || cursor.isBlank() ? null : cursor;
+        return pages.get(new PageKey(filter, position, pageSize), key -> IncidentService.keysetPage(
+                key.cursor(), key.size(),
+                limit -> incidentRepository.findFiltered(key.filter(), null, null, limit),
+                (after, limit) -> incidentRepository.findFiltered(
+                        key.filter(), after.createdAt(), after.idIncident(), limit)));
+    }
+
+    private void validate(IncidentFilter filter) {
+        validateRange("created", filter.createdFrom(), filter.createdTo());
+        validateRange("updated", filter.updatedFrom(), filter.updatedTo());
+        validateRange("closed", filter.closedFrom(), filter.closedTo());
+    }
+
+    private void validateRange(String field, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidFilterException(field + "From must be before " + field + "To");
+        }
+    }
+
+    private record PageKey(IncidentFilter filter, String cursor, int size) {}
+}
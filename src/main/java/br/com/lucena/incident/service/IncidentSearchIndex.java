@@ -0,0 +1,365 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido em memória sobre nome e descrição, mantido nas escritas.
+// Cada termo guarda uma lista de postings ordenada por id (ids de sequência crescem,
+// então criar um incidente é um append). A busca percorre os termos da consulta
+// documento a documento, guiada pelo mais raro, sem copiar as listas, e ranqueia
+// com BM25 sem normalização por tamanho. Buscas rodam em paralelo sob o read lock;
+// escritas são curtas e serializadas pelo write lock.
+@Component
+public class IncidentSearchIndex {
+
+    // Uma ocorrência no nome vale por três na descrição
+    static final int NAME_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // tf/(tf + k1) pré-calculado para as frequências comuns
+    private static final double[] SATURATION = new double[64];
+
+    static {
+        for (int frequency = 0; frequency < SATURATION.length; frequency++) {
+            SATURATION[frequency] = frequency * (K1 + 1) / (frequency + K1);
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    public void index(IncidentResponseDTO incident) {
+        index(incident.getIdIncident(), incident.getVersion(), incident.getName(), incident.getDescription());
+    }
+
+    // Idempotente por id: reindexar remove os termos da versão anterior.
+    // Uma publicação mais antiga que a indexada é ignorada.
+    public void index(Long id, Long version, String name, String description) {
+        // Tokenização fora do lock
+        Map<String, Integer> frequencies = frequencies(name, description);
+        int textHash = (name + '\u0000' + description).hashCode();
+
+        lock.writeLock().lock();
+        try {
+            Document current = documents.get(id);
+            if (current != null && current.isNewerThan(version)) {
+                return;
+            }
+            if (current != null && current.textHash() == textHash) {
+                // Só o status/versão mudou: os termos continuam os mesmos
+                documents.put(id, new Document(version, textHash, current.terms()));
+                return;
+            }
+            if (current != null) {
+                unlink(id, current.terms());
+            }
+            String[] keys = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), term -> new Postings()).put(id, entry.getValue());
+                keys[i++] = entry.getKey();
+            }
+            documents.put(id, new Document(version, textHash, keys));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Document current = documents.remove(id);
+            if (current != null) {
+                unlink(id, current.terms());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids da página pedida em ordem de relevância, mais o total de documentos que casam com todos os termos
+    public Hits search(String query, int offset, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Hits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[queryTerms.size()];
+            int n = 0;
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    return Hits.EMPTY;
+                }
+                lists[n++] = postings;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(postings -> postings.size));
+
+            int totalDocuments = Math.max(1, documents.size());
+            double[] idfs = new double[n];
+            // Limite superior (exclusivo) de cada lista; só desce, pois os ids são visitados em ordem decrescente
+            int[] bounds = new int[n];
+            for (int t = 0; t < n; t++) {
+                idfs[t] = idf(lists[t].size, totalDocuments);
+                bounds[t] = lists[t].size;
+            }
+
+            // Do id mais novo para o mais antigo: em empates de score o candidato não supera
+            // a raiz do heap e é descartado sem reordená-lo
+            Postings lead = lists[0];
+            TopHits top = new TopHits((int) Math.min((long) offset + limit, lead.size));
+            int total = 0;
+            for (int p = lead.size - 1; p >= 0; p--) {
+                long id = lead.ids[p];
+                double score = idfs[0] * saturate(lead.frequencies[p]);
+                boolean matches = true;
+                for (int t = 1; t < n; t++) {
+                    int position = lists[t].gallopBackward(id, bounds[t]);
+                    if (position < 0) {
+                        bounds[t] = -position - 1;
+                        matches = false;
+                        break;
+                    }
+                    bounds[t] = position;
+                    score += idfs[t] * saturate(lists[t].frequencies[position]);
+                }
+                if (matches) {
+                    total++;
+                    top.offer(id, score);
+                }
+            }
+            return new Hits(total, top.page(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Minúsculas, sem acentos ("Conexão" casa com "conexao") e quebrado em letras/dígitos
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Map<String, Integer> frequencies(String name, String description) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        tokenize(name).forEach(token -> frequencies.merge(token, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        return frequencies;
+    }
+
+    private void unlink(Long id, String[] keys) {
+        for (String key : keys) {
+            Postings postings = terms.get(key);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                terms.remove(key);
+            }
+        }
+    }
+
+    private static double idf(int documentFrequency, int totalDocuments) {
+        return Math.log(1 + (totalDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static double saturate(int frequency) {
+        return frequency < SATURATION.length ? SATURATION[frequency] : frequency * (K1 + 1) / (frequency + K1);
+    }
+
+    public record Hits(int total, List<Long> ids) {
+        static final Hits EMPTY = new Hits(0, List.of());
+    }
+
+    private record Document(Long version, int textHash, String[] terms) {
+        boolean isNewerThan(Long candidate) {
+            return version != null && candidate != null && version > candidate;
+        }
+    }
+
+    // Postings de um termo: ids ordenados e frequência ponderada em arrays paralelos.
+    // Acessado somente sob o lock do índice.
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void put(long id, int frequency) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size] = id;
+                frequencies[size++] = frequency;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            position = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ids[position] = id;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        // Busca exponencial para trás a partir de to (exclusivo): O(log distância), então listas
+        // densas custam O(1) por candidato e listas esparsas continuam logarítmicas.
+        // Mesmo retorno de Arrays.binarySearch.
+        int gallopBackward(long id, int to) {
+            if (to > 0 && ids[to - 1] == id) {
+                return to - 1;
+            }
+            int bound = 1;
+            while (to - bound > 0 && ids[to - bound] > id) {
+                bound <<= 1;
+            }
+            return Arrays.binarySearch(ids, Math.max(0, to - bound), to - (bound >> 1), id);
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+        }
+    }
+
+    // Heap de mínimo com os k melhores (raiz = pior deles): O(n log k) sem ordenar todos os candidatos.
+    // Empate de score: o id maior, o incidente mais recente, vence.
+    private static final class TopHits {
+
+        private final long[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopHits(int capacity) {
+            this.ids = new long[capacity];
+            this.scores = new double[capacity];
+        }
+
+        void offer(long id, double score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(score, id, scores[0], ids[0])) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(size);
+            }
+        }
+
+        // Esvazia o heap do pior para o melhor e devolve os ids a partir de offset
+        List<Long> page(int offset) {
+            long[] ordered = new long[size];
+            for (int last = size - 1; last >= 0; last--) {
+                ordered[last] = ids[0];
+                ids[0] = ids[last];
+                scores[0] = scores[last];
+                siftDown(last);
+            }
+            List<Long> page = new ArrayList<>(Math.max(0, ordered.length - offset));
+            for (int i = offset; i < ordered.length; i++) {
+                page.add(ordered[i]);
+            }
+            return page;
+        }
+
+        private static boolean better(double score, long id, double otherScore, long otherId) {
+            return score != otherScore ? score > otherScore : id > otherId;
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!better(scores[parent], ids[parent], scores[position], ids[position])) {
+                    return;
+                }
+                swap(parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int heapSize) {
+            int position = 0;
+            while (true) {
+                int left = 2 * position + 1;
+                int right = left + 1;
+                int worst = position;
+                if (left < heapSize && better(scores[worst], ids[worst], scores[left], ids[left])) {
+                    worst = left;
+                }
+                if (right < heapSize && better(scores[worst], ids[worst], scores[right], ids[right])) {
+                    worst = right;
+                }
+                if (worst == position) {
+                    return;
+                }
+                swap(position, worst);
+                position = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
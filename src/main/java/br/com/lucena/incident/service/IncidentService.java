@@ -1,89 +1,342 @@
 package br.com.lucena.incident.service;
 
+import br.com.lucena.incident.config.ReplicaPool;
+import br.com.lucena.incident.dto.CacheStatsDTO;
+import br.com.lucena.incident.dto.IncidentHistoryEntryDTO;
+import br.com.lucena.incident.dto.IncidentPageDTO;
 import br.com.lucena.incident.dto.IncidentRequestDTO;
 import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.dto.IncidentSearchResultDTO;
+import br.com.lucena.incident.dto.IncidentStatsDTO;
+import br.com.lucena.incident.exception.IncidentConflictException;
+import br.com.lucena.incident.exception.InvalidStatusTransitionException;
 import br.com.lucena.incident.exception.ResourceNotFoundException;
 import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEventType;
 import br.com.lucena.incident.model.IncidentStatus;
 import br.com.lucena.incident.repository.IncidentRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
+@Timed("incident.service")
 public class IncidentService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    // Tentativas do read-modify-write do PUT antes de devolver 409
+    static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private IncidentRepository incidentRepository;
+    private IncidentCache incidentCache;
+    private LatestIncidentsBuffer latestIncidents;
+    private IncidentSearchIndex searchIndex;
+    private IncidentEventBroadcaster eventBroadcaster;
+    private IncidentStatsRollup statsRollup;
+    private IncidentEventLog eventLog;
+    private IncidentDeduplicator deduplicator;
+    private IncidentChangeTracker changeTracker;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    public IncidentService(IncidentRepository incidentRepository) {
+    public IncidentService(IncidentRepository incidentRepository, IncidentCache incidentCache,
+                           LatestIncidentsBuffer latestIncidents, IncidentSearchIndex searchIndex,
+                           IncidentEventBroadcaster eventBroadcaster, IncidentStatsRollup statsRollup,
+                           IncidentEventLog eventLog, IncidentDeduplicator deduplicator,
+                           IncidentChangeTracker changeTracker, TransactionTemplate transactionTemplate) {
         this.incidentRepository = incidentRepository;
+        this.incidentCache = incidentCache;
+        this.latestIncidents = latestIncidents;
+        this.searchIndex = searchIndex;
+        this.eventBroadcaster = eventBroadcaster;
+        this.statsRollup = statsRollup;
+        this.eventLog = eventLog;
+        this.deduplicator = deduplicator;
+        this.changeTracker = changeTracker;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedLatestIncidents() {
+        latestIncidents.reseed(this::loadLatestIncidents);
+    }
+
+    // Carga inicial do índice de busca e das métricas numa única leitura da tabela;
+    // depois dela os dois são mantidos em publish/delete. Do arquivo só entram nas métricas
+    // as linhas dentro da retenção dos buckets; as mais antigas são apenas contadas.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndexes() {
+        incidentRepository.forEachIncident(incident -> {
+            searchIndex.index(incident.getIdIncident(), incident.getVersion(),
+                    incident.getName(), incident.getDescription());
+            statsRollup.load(incident.getIdIncident(), incident.getVersion(), incident.getStatus(),
+                    incident.getCreatedAt(), incident.getClosedAt());
+        });
+        LocalDateTime retainedSince = statsRollup.retainedSince();
+        incidentRepository.forEachArchivedIncident(retainedSince, incident ->
+                statsRollup.load(incident.getIdIncident(), incident.getVersion(), incident.getStatus(),
+                        incident.getCreatedAt(), incident.getClosedAt()));
+        statsRollup.loadArchived(incidentRepository.countArchivedClosedBefore(retainedSince));
     }
 
+    // Repetições dentro da janela de deduplicação não vão ao banco: devolvem o incidente
+    // aberto existente (do cache) com o contador de ocorrências atualizado
     public IncidentResponseDTO createIncident(IncidentRequestDTO requestDTO) {
-        Incident incident = new Incident();
-        incident.setName(requestDTO.getName());
-        incident.setDescription(requestDTO.getDescription());
-        incident.setStatus(IncidentStatus.OPEN);
+        IncidentDeduplicator.Outcome outcome = deduplicator.createOrCoalesce(requestDTO, () -> insert(requestDTO));
+        return outcome.created() != null ? outcome.created() : coalesced(outcome);
+    }
 
-        return mapToDTO(incidentRepository.save(incident));
+    IncidentResponseDTO coalesced(IncidentDeduplicator.Outcome outcome) {
+        IncidentResponseDTO existing = getIncidentById(outcome.idIncident());
+        return new IncidentResponseDTO(existing.getIdIncident(), existing.getName(), existing.getDescription(),
+                existing.getStatus(), existing.getCreatedAt(), existing.getUpdatedAt(), existing.getClosedAt(),
+                existing.getVersion(), Math.max(outcome.occurrences(), existing.getOccurrences()));
     }
 
+    // Grava as ocorrências agregadas desde o último flush, um UPDATE por incidente numa única
+    // transação, e republica os incidentes para cache, janela e assinantes. Também roda no
+    // encerramento para não perder as contagens pendentes.
+    @Scheduled(fixedDelayString = "${incident.dedup.flush-interval:PT5S}")
+    @PreDestroy
+    public void flushOccurrences() {
+        Map<Long, Long> pending = deduplicator.drainPending();
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> notWritten = new HashMap<>();
+        List<IncidentResponseDTO> updated;
+        try {
+            updated = transactionTemplate.execute(tx -> {
+                pending.forEach((id, delta) -> {
+                    if (incidentRepository.addOccurrences(id, delta) == 0) {
+                        notWritten.put(id, delta);
+                    }
+                });
+                return incidentRepository.findDtosByIdIn(pending.keySet());
+            });
+        } catch (DataAccessException e) {
+            deduplicator.requeue(pending);
+            throw e;
+        }
+        // Incidente aceito pela ingestão assíncrona e ainda na fila: conta no próximo flush
+        deduplicator.requeue(notWritten);
+        updated.forEach(incident -> publish(incident, IncidentEventType.COALESCED));
+    }
+
+    // Cada escrita grava a mudança e o evento do histórico na mesma transação;
+    // as estruturas em memória só são atualizadas depois do commit
+    private IncidentResponseDTO insert(IncidentRequestDTO requestDTO) {
+        return publish(transactionTemplate.execute(tx -> {
+            Incident saved = incidentRepository.save(toEntity(requestDTO));
+            // Flush antes do evento: os timestamps só são gerados no INSERT
+            incidentRepository.flush();
+            IncidentResponseDTO created = mapToDTO(saved);
+            eventLog.append(IncidentEventType.CREATED, created);
+            return created;
+        }), IncidentEventType.CREATED);
+    }
+
+    // Incidentes fechados há mais que a retenção já foram movidos para o arquivo:
+    // a segunda consulta só acontece num miss do cache e da tabela principal.
+    // As cargas do cache vão ao primário: o cache é de todos os clientes.
     public IncidentResponseDTO getIncidentById(Long id) {
-        Incident incident = findIncidentById(id);
-        return mapToDTO(incident);
+        return incidentCache.get(id, key -> ReplicaPool.onPrimary(() -> incidentRepository.findDtoById(key)
+                .or(() -> incidentRepository.findArchivedDtoById(key))
+                .orElseThrow(() -> new ResourceNotFoundException("Incident not found with id: " + key))));
+    }
+
+    public CacheStatsDTO getCacheStats() {
+        return incidentCache.stats();
+    }
+
+    @Transactional(readOnly = true)
+    public IncidentPageDTO getAllIncidents(String cursor, int size) {
+        return keysetPage(cursor, size,
+                incidentRepository::findFirstPage,
+                (position, limit) -> incidentRepository.findPageAfter(
+                        position.createdAt(), position.idIncident(), limit));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllIncidents(Consumer<IncidentResponseDTO> consumer) {
+        incidentRepository.forEachIncident(incident -> consumer.accept(mapToDTO(incident)));
     }
 
-    public List<IncidentResponseDTO> getAllIncidents() {
-        return incidentRepository.findAll().stream()
-                .map(this::mapToDTO)
+    // Só os ids da página saem do índice; os incidentes vêm do cache, e os ausentes num único SELECT ... IN
+    public IncidentSearchResultDTO search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, Math.min(page, (Integer.MAX_VALUE - pageSize) / pageSize));
+
+        IncidentSearchIndex.Hits hits = searchIndex.search(query, pageNumber * pageSize, pageSize);
+        if (hits.ids().isEmpty()) {
+            return new IncidentSearchResultDTO(List.of(), pageNumber, 0, hits.total());
+        }
+        Map<Long, IncidentResponseDTO> found = incidentCache.getAll(hits.ids(),
+                ids -> ReplicaPool.onPrimary(() -> incidentRepository.findDtosByIdIn(ids)));
+        List<IncidentResponseDTO> content = hits.ids().stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
                 .toList();
+        return new IncidentSearchResultDTO(content, pageNumber, content.size(), hits.total());
+    }
+
+    public List<IncidentHistoryEntryDTO> getHistory(Long id) {
+        List<IncidentHistoryEntryDTO> history = eventLog.history(id);
+        if (history.isEmpty()) {
+            throw new ResourceNotFoundException("No history for incident with id: " + id);
+        }
+        return history;
+    }
+
+    public IncidentResponseDTO getIncidentAt(Long id, LocalDateTime at) {
+        return eventLog.stateAt(id, at)
+                .orElseThrow(() -> new ResourceNotFoundException("Incident " + id + " did not exist at " + at));
+    }
+
+    public IncidentStatsDTO getStats(int hours, int days) {
+        return statsRollup.snapshot(hours, days);
+    }
+
+    // Dashboards assinam em vez de fazer polling; Last-Event-ID retoma de onde pararam
+    public SseEmitter subscribeToEvents(String lastEventId) {
+        return eventBroadcaster.subscribe(lastEventId);
     }
 
     public List<IncidentResponseDTO> getLatest20Incidents() {
-        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return incidentRepository.findAll(pageRequest).getContent().stream()
-                .map(this::mapToDTO)
-                .toList();
+        if (latestIncidents.isUnderfilled()) {
+            latestIncidents.reseed(this::loadLatestIncidents);
+        }
+        return latestIncidents.latest();
     }
 
     public IncidentResponseDTO updateIncident(Long id, IncidentRequestDTO requestDTO) {
-        Incident incident = findIncidentById(id);
-        
-        incident.setName(requestDTO.getName());
-        incident.setDescription(requestDTO.getDescription());
-        
-        return mapToDTO(incidentRepository.save(incident));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return publish(transactionTemplate.execute(tx -> {
+                    Incident incident = findIncidentById(id);
+
+                    incident.setName(requestDTO.getName());
+                    incident.setDescription(requestDTO.getDescription());
+
+                    Incident saved = incidentRepository.save(incident);
+                    // Flush antes do evento: a versão e o updatedAt registrados são os gravados
+                    incidentRepository.flush();
+                    IncidentResponseDTO updated = mapToDTO(saved);
+                    eventLog.append(IncidentEventType.UPDATED, updated);
+                    return updated;
+                }), IncidentEventType.UPDATED);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Outra escrita venceu entre a leitura e o save: relê e reaplica
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw new IncidentConflictException("Incident " + id + " was modified concurrently, try again");
+                }
+            }
+        }
     }
 
     public void deleteIncident(Long id) {
-        Incident incident = findIncidentById(id);
-        incidentRepository.delete(incident);
+        Incident incident = transactionTemplate.execute(tx -> {
+            Incident deleted = findIncidentById(id);
+            incidentRepository.delete(deleted);
+            eventLog.deleted(id, deleted.getVersion());
+            return deleted;
+        });
+        deduplicator.release(id);
+        incidentCache.evict(id);
+        latestIncidents.remove(id);
+        searchIndex.remove(id);
+        statsRollup.deleted(id, incident.getStatus());
+        changeTracker.changed(incident.getStatus());
+        eventBroadcaster.deleted(id);
     }
     
     public IncidentResponseDTO updateStatus(Long id, IncidentStatus newStatus) {
-        Incident incident = findIncidentById(id);
-        incident.setStatus(newStatus);
-        
-        // Se estiver mudando para CLOSED, atualizar a data de fechamento
-        if (newStatus == IncidentStatus.CLOSED) {
-            incident.setClosedAt(LocalDateTime.now());
-        } else if (incident.getClosedAt() != null) {
-            // Se estiver reabrindo um incidente fechado, limpar a data
-            incident.setClosedAt(null);
+        return updateStatus(id, newStatus, null);
+    }
+
+    // UPDATE condicional direto, sem SELECT prévio: a máquina de estados entra no WHERE
+    // (status IN predecessores do destino) e só as colunas de status são escritas,
+    // então uma edição concorrente de nome/descrição nunca é sobrescrita
+    public IncidentResponseDTO updateStatus(Long id, IncidentStatus newStatus, IncidentStatus expectedStatus) {
+        Set<IncidentStatus> predecessors = newStatus.predecessors();
+        if (expectedStatus != null && !predecessors.contains(expectedStatus)) {
+            throw new InvalidStatusTransitionException(id, expectedStatus, newStatus);
         }
-        
-        return mapToDTO(incidentRepository.save(incident));
+        if (predecessors.isEmpty()) {
+            throw new InvalidStatusTransitionException(newStatus);
+        }
+        Set<IncidentStatus> from = expectedStatus != null ? EnumSet.of(expectedStatus) : predecessors;
+        LocalDateTime now = LocalDateTime.now();
+
+        IncidentResponseDTO changed = transactionTemplate.execute(tx -> {
+            if (incidentRepository.updateStatusIfCurrentIn(id, from, newStatus, closedAtFor(newStatus, now), now) == 0) {
+                return null;
+            }
+            IncidentResponseDTO current = incidentRepository.findDtoById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Incident not found with id: " + id));
+            eventLog.append(IncidentEventType.STATUS_CHANGED, current);
+            return current;
+        });
+        if (changed == null) {
+            // Só no caminho de erro: descobre se o incidente não existe, se a transição é inválida
+            // ou se outra escrita mudou o status antes. No primário: o UPDATE que não casou foi lá,
+            // e uma réplica atrasada trocaria 404, 409 e 422 entre si
+            IncidentStatus current = ReplicaPool.onPrimary(() -> incidentRepository.findStatusById(id)
+                    .or(() -> incidentRepository.findArchivedDtoById(id).map(IncidentResponseDTO::getStatus)))
+                    .orElseThrow(() -> new ResourceNotFoundException("Incident not found with id: " + id));
+            if (!current.canTransitionTo(newStatus)) {
+                throw new InvalidStatusTransitionException(id, current, newStatus);
+            }
+            throw new IncidentConflictException(expectedStatus != null
+                    ? "Incident " + id + " is no longer in status " + expectedStatus
+                    : "Incident " + id + " changed status concurrently, try again");
+        }
+
+        return publish(changed, IncidentEventType.STATUS_CHANGED);
     }
     
-    public List<IncidentResponseDTO> findByStatus(IncidentStatus status) {
-        return incidentRepository.findByStatus(status).stream()
-                .map(this::mapToDTO)
-                .toList();
+    @Transactional(readOnly = true)
+    public IncidentPageDTO findByStatus(IncidentStatus status, String cursor, int size) {
+        return keysetPage(cursor, size,
+                limit -> incidentRepository.findFirstPageByStatus(status, limit),
+                (position, limit) -> incidentRepository.findPageByStatusAfter(
+                        status, position.createdAt(), position.idIncident(), limit));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<IncidentStatus, Long> countByStatus() {
+        Map<IncidentStatus, Long> counts = new EnumMap<>(IncidentStatus.class);
+        for (IncidentStatus status : IncidentStatus.values()) {
+            counts.put(status, 0L);
+        }
+        incidentRepository.countGroupedByStatus()
+                .forEach(count -> counts.put(count.getStatus(), count.getTotal()));
+        return counts;
     }
 
     private Incident findIncidentById(Long id) {
@@ -91,7 +344,84 @@ public class IncidentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Incident not found with id: " + id));
     }
 
-    private IncidentResponseDTO mapToDTO(Incident incident) {
+    static IncidentPageDTO keysetPage(String cursor, int size,
+                                       Function<Pageable, List<IncidentResponseDTO>> firstPage,
+                                       BiFunction<IncidentCursor, Pageable, List<IncidentResponseDTO>> pageAfter) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Busca um registro a mais para saber se existe próxima página
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<IncidentResponseDTO> rows = cursor == null || cursor.isBlank()
+                ? firstPage.apply(limit)
+                : pageAfter.apply(IncidentCursor.decode(cursor), limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<IncidentResponseDTO> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? IncidentCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return new IncidentPageDTO(page, page.size(), nextCursor);
+    }
+
+    // Primário, como as cargas do cache: a janela é de todos os clientes
+    private List<IncidentResponseDTO> loadLatestIncidents(int limit) {
+        return ReplicaPool.onPrimary(() -> incidentRepository.findLatest(PageRequest.of(0, limit)));
+    }
+
+    Incident toEntity(IncidentRequestDTO requestDTO) {
+        Incident incident = new Incident();
+        incident.setName(requestDTO.getName());
+        incident.setDescription(requestDTO.getDescription());
+        incident.setStatus(IncidentStatus.OPEN);
+        return incident;
+    }
+
+    void applyStatus(Incident incident, IncidentStatus newStatus) {
+        if (!incident.getStatus().canTransitionTo(newStatus)) {
+            throw new InvalidStatusTransitionException(incident.getIdIncident(), incident.getStatus(), newStatus);
+        }
+        incident.setStatus(newStatus);
+        incident.setClosedAt(closedAtFor(newStatus, LocalDateTime.now()));
+    }
+
+    // Se estiver mudando para CLOSED, registra a data de fechamento;
+    // em qualquer outro status (inclusive reabertura) a data é limpa
+    private LocalDateTime closedAtFor(IncidentStatus newStatus, LocalDateTime now) {
+        return newStatus == IncidentStatus.CLOSED ? now : null;
+    }
+
+    // Propaga o estado salvo para as estruturas em memória mantidas nas escritas
+    // e avisa os assinantes do fluxo de eventos
+    IncidentResponseDTO publish(IncidentResponseDTO incident, IncidentEventType type) {
+        incidentCache.put(incident);
+        latestIncidents.upsert(incident);
+        searchIndex.index(incident);
+        statsRollup.record(incident);
+        deduplicator.observe(incident);
+        // Depois das estruturas em memória: um ETag novo nunca aponta para conteúdo antigo
+        if (type == IncidentEventType.STATUS_CHANGED) {
+            changeTracker.statusChanged(incident.getStatus());
+        } else {
+            changeTracker.changed(incident.getStatus());
+        }
+        eventBroadcaster.publish(type, incident);
+        return incident;
+    }
+
+    // Incidentes gravados por uma importação: entram nas estruturas em memória como na carga
+    // inicial, sem passar pelo cache e sem um evento por linha para os assinantes
+    void imported(List<IncidentResponseDTO> incidents) {
+        Set<IncidentStatus> statuses = EnumSet.noneOf(IncidentStatus.class);
+        for (IncidentResponseDTO incident : incidents) {
+            latestIncidents.upsert(incident);
+            searchIndex.index(incident);
+            statsRollup.load(incident.getIdIncident(), incident.getVersion(), incident.getStatus(),
+                    incident.getCreatedAt(), incident.getClosedAt());
+            statuses.add(incident.getStatus());
+        }
+        statuses.forEach(changeTracker::changed);
+    }
+
+    IncidentResponseDTO mapToDTO(Incident incident) {
         return new IncidentResponseDTO(
                 incident.getIdIncident(),
                 incident.getName(),
@@ -99,7 +429,9 @@ public class IncidentService {
                 incident.getStatus(),
                 incident.getCreatedAt(),
                 incident.getUpdatedAt(),
-                incident.getClosedAt()
+                incident.getClosedAt(),
+                incident.getVersion(),
+                incident.getOccurrences()
         );
     }
 } 
\ No newline at end of file
@@ -0,0 +1,395 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.exception.InvalidSnapshotException;
+import br.com.lucena.incident.model.ArchivedIncident;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEvent;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Formato binário da exportação/importação de incidentes, lido e escrito por canais NIO com um
+// buffer fixo, então a memória não cresce com o número de linhas.
+// Cabeçalho: [magic][versão][dicionário de status][dicionário de tipos de evento]. Seguem três
+// seções, nesta ordem: o histórico (incident_events, em ordem de incidente e versão), os
+// arquivados (incidents_archive) e os incidentes. O histórico vem antes para a importação saber,
+// ao inserir cada incidente, se ele já tem eventos.
+// Incidente: [tamanho][id][nome][descrição][status como índice no dicionário][criado][atualizado]
+// [fechado][ocorrências][versão]; o arquivado acrescenta [arquivado em]. Evento: [tamanho]
+// [incidente][versão][tipo][snapshot][ocorrido][nome][descrição][status][criado][fechado], com
+// os campos que o evento não usa ausentes. Textos em UTF-8 precedidos do tamanho, datas em
+// microssegundos desde 1970 (a precisão do TIMESTAMP(6)).
+// Um tamanho zero encerra cada seção e é seguido da contagem de registros dela, então um arquivo
+// cortado nunca passa por completo. A versão 1 (só a seção de incidentes) continua sendo lida.
+final class IncidentSnapshotFormat {
+
+    private static final int MAGIC = 0x494E4353;
+    private static final short VERSION = 2;
+    private static final short INCIDENTS_ONLY_VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int EVENTS = 0;
+    private static final int ARCHIVED = 1;
+    private static final int INCIDENTS = 2;
+    private static final int DONE = 3;
+    private static final String[] SECTION_NAMES = {"events", "archived incidents", "incidents"};
+    // Data ausente (closedAt de quem não está fechado)
+    private static final long NO_TIME = Long.MIN_VALUE;
+    // Texto ou status ausente (campos que um evento não alterou)
+    private static final int NO_TEXT = 0xFFFF;
+    private static final int NO_STATUS = 0xFF;
+    // Id, dois tamanhos de texto, status e cinco longs: o menor incidente possível
+    private static final int MIN_RECORD_BYTES = Long.BYTES + Short.BYTES * 2 + Byte.BYTES + Long.BYTES * 5;
+    private static final int MIN_ARCHIVED_BYTES = MIN_RECORD_BYTES + Long.BYTES;
+    // Incidente, versão, tipo, snapshot, ocorrido, dois tamanhos de texto, status e duas datas
+    private static final int MIN_EVENT_BYTES = Long.BYTES * 3 + Byte.BYTES * 2 + Short.BYTES * 2 + Byte.BYTES
+            + Long.BYTES * 2;
+
+    private IncidentSnapshotFormat() {
+    }
+
+    static final class Writer {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private int section = EVENTS;
+        private long count;
+        private long incidents;
+
+        Writer(WritableByteChannel channel) {
+            this.channel = channel;
+            buffer.putInt(MAGIC).putShort(VERSION);
+            dictionary(IncidentStatus.values());
+            dictionary(IncidentEventType.values());
+        }
+
+        // As seções são escritas em ordem: eventos, arquivados e incidentes
+        void write(IncidentEvent event) throws IOException {
+            byte[] name = bytes(event.getName());
+            byte[] description = bytes(event.getDescription());
+            int length = MIN_EVENT_BYTES + length(name) + length(description);
+            enter(EVENTS, length);
+            buffer.putInt(length)
+                    .putLong(event.getIdIncident())
+                    .putLong(event.getVersion())
+                    .put((byte) event.getType().ordinal())
+                    .put((byte) (event.isSnapshot() ? 1 : 0))
+                    .putLong(micros(event.getOccurredAt()));
+            text(name);
+            text(description);
+            buffer.put((byte) (event.getStatus() == null ? NO_STATUS : event.getStatus().ordinal()))
+                    .putLong(micros(event.getCreatedAt()))
+                    .putLong(micros(event.getClosedAt()));
+            count++;
+        }
+
+        void write(ArchivedIncident incident) throws IOException {
+            byte[] name = bytes(incident.getName());
+            byte[] description = bytes(incident.getDescription());
+            int length = MIN_ARCHIVED_BYTES + name.length + description.length;
+            enter(ARCHIVED, length);
+            incident(length, incident.getIdIncident(), name, description, incident.getStatus(),
+                    incident.getCreatedAt(), incident.getUpdatedAt(), incident.getClosedAt(),
+                    incident.getOccurrences(), incident.getVersion());
+            buffer.putLong(micros(incident.getArchivedAt()));
+            count++;
+        }
+
+        void write(Incident incident) throws IOException {
+            byte[] name = bytes(incident.getName());
+            byte[] description = bytes(incident.getDescription());
+            int length = MIN_RECORD_BYTES + name.length + description.length;
+            enter(INCIDENTS, length);
+            incident(length, incident.getIdIncident(), name, description, incident.getStatus(),
+                    incident.getCreatedAt(), incident.getUpdatedAt(), incident.getClosedAt(),
+                    incident.getOccurrences(), incident.getVersion());
+            count++;
+            incidents++;
+        }
+
+        // Fecha as seções que faltam e devolve quantos incidentes foram escritos
+        long finish() throws IOException {
+            while (section < DONE) {
+                close();
+            }
+            flush();
+            return incidents;
+        }
+
+        private void dictionary(Enum<?>[] values) {
+            buffer.put((byte) values.length);
+            for (Enum<?> value : values) {
+                byte[] name = value.name().getBytes(StandardCharsets.UTF_8);
+                buffer.put((byte) name.length).put(name);
+            }
+        }
+
+        private void enter(int target, int length) throws IOException {
+            if (target < section) {
+                throw new IllegalStateException("Snapshot sections must be written in order");
+            }
+            while (section < target) {
+                close();
+            }
+            ensure(Integer.BYTES + length);
+        }
+
+        private void close() throws IOException {
+            ensure(Integer.BYTES + Long.BYTES);
+            buffer.putInt(0).putLong(count);
+            count = 0;
+            section++;
+        }
+
+        private void incident(int length, Long id, byte[] name, byte[] description, IncidentStatus status,
+                              LocalDateTime createdAt, LocalDateTime updatedAt, LocalDateTime closedAt,
+                              Long occurrences, Long version) {
+            buffer.putInt(length)
+                    .putLong(id)
+                    .putShort((short) name.length).put(name)
+                    .putShort((short) description.length).put(description)
+                    .put((byte) status.ordinal())
+                    .putLong(micros(createdAt))
+                    .putLong(micros(updatedAt))
+                    .putLong(micros(closedAt))
+                    .putLong(occurrences)
+                    .putLong(version);
+        }
+
+        private void text(byte[] bytes) {
+            if (bytes == null) {
+                buffer.putShort((short) NO_TEXT);
+            } else {
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private static byte[] bytes(String text) {
+            return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int length(byte[] bytes) {
+            return bytes == null ? 0 : bytes.length;
+        }
+    }
+
+    static final class Reader {
+
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).flip();
+        private final IncidentStatus[] statuses;
+        private final IncidentEventType[] types;
+        private int section;
+        private long count;
+
+        Reader(ReadableByteChannel channel) throws IOException {
+            this.channel = channel;
+            require(Integer.BYTES + Short.BYTES + Byte.BYTES);
+            if (buffer.getInt() != MAGIC) {
+                throw new InvalidSnapshotException("Not an incident snapshot");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != INCIDENTS_ONLY_VERSION) {
+                throw new InvalidSnapshotException("Unsupported snapshot version " + version);
+            }
+            statuses = dictionary(IncidentStatus.class);
+            if (version == INCIDENTS_ONLY_VERSION) {
+                types = new IncidentEventType[0];
+                section = INCIDENTS;
+            } else {
+                types = dictionary(IncidentEventType.class);
+                section = EVENTS;
+            }
+        }
+
+        // Os registros de cada seção devem ser lidos em ordem: eventos, arquivados e incidentes.
+        // Cada método devolve null no fim da sua seção (de imediato, se o arquivo não a tem).
+        IncidentEvent nextEvent() throws IOException {
+            int length = nextRecord(EVENTS, MIN_EVENT_BYTES);
+            if (length == 0) {
+                return null;
+            }
+            int end = buffer.position() + length;
+            Long idIncident = buffer.getLong();
+            Long version = buffer.getLong();
+            int type = buffer.get() & 0xFF;
+            if (type >= types.length) {
+                throw corrupt();
+            }
+            boolean snapshot = buffer.get() != 0;
+            LocalDateTime occurredAt = time(buffer.getLong());
+            String name = text(end);
+            String description = text(end);
+            if (end - buffer.position() < Byte.BYTES + Long.BYTES * 2) {
+                throw corrupt();
+            }
+            int status = buffer.get() & 0xFF;
+            if (status != NO_STATUS && status >= statuses.length) {
+                throw corrupt();
+            }
+            IncidentEvent event = new IncidentEvent(null, idIncident, version, types[type], snapshot, occurredAt,
+                    name, description, status == NO_STATUS ? null : statuses[status], time(buffer.getLong()),
+                    time(buffer.getLong()));
+            return finishRecord(end, event);
+        }
+
+        ArchivedIncident nextArchived() throws IOException {
+            int length = nextRecord(ARCHIVED, MIN_ARCHIVED_BYTES);
+            if (length == 0) {
+                return null;
+            }
+            int end = buffer.position() + length;
+            Incident incident = incident(end, Long.BYTES);
+            ArchivedIncident archived = new ArchivedIncident(incident.getIdIncident(), incident.getName(),
+                    incident.getDescription(), incident.getStatus(), incident.getCreatedAt(), incident.getUpdatedAt(),
+                    incident.getClosedAt(), incident.getVersion(), incident.getOccurrences(), time(buffer.getLong()));
+            return finishRecord(end, archived);
+        }
+
+        // Próximo incidente, ou null no marcador de fim
+        Incident next() throws IOException {
+            int length = nextRecord(INCIDENTS, MIN_RECORD_BYTES);
+            if (length == 0) {
+                return null;
+            }
+            int end = buffer.position() + length;
+            return finishRecord(end, incident(end, 0));
+        }
+
+        // Tamanho do próximo registro da seção, já no buffer; zero no fim dela
+        private int nextRecord(int wanted, int minBytes) throws IOException {
+            if (section > wanted) {
+                return 0;
+            }
+            if (section < wanted) {
+                throw new IllegalStateException("Snapshot sections must be read in order");
+            }
+            require(Integer.BYTES);
+            int length = buffer.getInt();
+            if (length == 0) {
+                require(Long.BYTES);
+                long expected = buffer.getLong();
+                if (expected != count) {
+                    throw new InvalidSnapshotException("Snapshot declares " + expected + " " + SECTION_NAMES[section]
+                            + " but has " + count);
+                }
+                section++;
+                count = 0;
+                return 0;
+            }
+            if (length < minBytes || length > BUFFER_BYTES - Integer.BYTES) {
+                throw corrupt();
+            }
+            require(length);
+            return length;
+        }
+
+        // Campos acrescentados por versões futuras do registro são ignorados
+        private <T> T finishRecord(int end, T record) {
+            buffer.position(end);
+            count++;
+            return record;
+        }
+
+        private Incident incident(int end, int trailingBytes) {
+            Long id = buffer.getLong();
+            String name = text(end);
+            String description = text(end);
+            if (name == null || description == null
+                    || end - buffer.position() < Byte.BYTES + Long.BYTES * 5 + trailingBytes) {
+                throw corrupt();
+            }
+            int status = buffer.get() & 0xFF;
+            if (status >= statuses.length) {
+                throw corrupt();
+            }
+            return new Incident(id, name, description, statuses[status], time(buffer.getLong()),
+                    time(buffer.getLong()), time(buffer.getLong()), buffer.getLong(), buffer.getLong());
+        }
+
+        private <E extends Enum<E>> E[] dictionary(Class<E> type) throws IOException {
+            require(Byte.BYTES);
+            E[] values = Arrays.copyOf(type.getEnumConstants(), buffer.get() & 0xFF);
+            for (int i = 0; i < values.length; i++) {
+                require(Byte.BYTES);
+                byte[] name = new byte[buffer.get() & 0xFF];
+                require(name.length);
+                buffer.get(name);
+                try {
+                    values[i] = Enum.valueOf(type, new String(name, StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidSnapshotException("Unknown " + type.getSimpleName() + " in snapshot: "
+                            + new String(name, StandardCharsets.UTF_8));
+                }
+            }
+            return values;
+        }
+
+        private String text(int end) {
+            int length = buffer.getShort() & 0xFFFF;
+            if (length == NO_TEXT) {
+                return null;
+            }
+            if (length > end - buffer.position()) {
+                throw corrupt();
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private InvalidSnapshotException corrupt() {
+            return new InvalidSnapshotException("Corrupt snapshot record after " + count + " " + SECTION_NAMES[section]);
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new InvalidSnapshotException("Snapshot ended before its end marker, after " + count + " "
+                            + SECTION_NAMES[section]);
+                }
+            }
+            buffer.flip();
+        }
+    }
+
+    private static long micros(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime time(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
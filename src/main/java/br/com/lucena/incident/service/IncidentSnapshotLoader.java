@@ -0,0 +1,104 @@
+package br.com.lucena.incident.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Reinício rápido com o banco em memória: carrega o snapshot antes de a aplicação ficar pronta
+// (os runners rodam antes do ApplicationReadyEvent, que monta índices e métricas a partir da
+// tabela já carregada) e, se configurado, grava um novo snapshot no encerramento.
+@Component
+public class IncidentSnapshotLoader implements ApplicationRunner, SmartLifecycle {
+
+    private IncidentTransferService transferService;
+    private IncidentService incidentService;
+    private IncidentIngestQueue ingestQueue;
+    private Path path;
+    private boolean loadOnStartup;
+    private boolean saveOnShutdown;
+    private volatile boolean running;
+
+    @Autowired
+    public IncidentSnapshotLoader(IncidentTransferService transferService,
+                                  IncidentService incidentService,
+                                  IncidentIngestQueue ingestQueue,
+                                  @Value("${incident.snapshot.path:./data/incidents.snapshot}") Path path,
+                                  @Value("${incident.snapshot.load-on-startup:false}") boolean loadOnStartup,
+                                  @Value("${incident.snapshot.save-on-shutdown:false}") boolean saveOnShutdown) {
+        this.transferService = transferService;
+        this.incidentService = incidentService;
+        this.ingestQueue = ingestQueue;
+        this.path = path;
+        this.loadOnStartup = loadOnStartup;
+        this.saveOnShutdown = saveOnShutdown;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!loadOnStartup || !Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transferService.importFrom(channel, false);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Fase baixa: para depois do servidor web, que já encerrou as requisições em andamento, e
+    // antes da destruição dos beans, com banco e métricas ainda disponíveis
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (!saveOnShutdown) {
+            return;
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Escreve num arquivo temporário e troca de uma vez: uma queda no meio mantém o snapshot anterior
+    private void save() throws IOException, InterruptedException {
+        // O que ainda está na fila de ingestão e as ocorrências pendentes entram no snapshot
+        ingestQueue.shutdown();
+        incidentService.flushOccurrences();
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            transferService.exportTo(channel);
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
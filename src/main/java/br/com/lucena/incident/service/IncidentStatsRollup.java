@@ -0,0 +1,284 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.dto.IncidentStatsDTO;
+import br.com.lucena.incident.dto.StatsBucketDTO;
+import br.com.lucena.incident.model.IncidentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Métricas por hora e por dia mantidas incrementalmente nas escritas: criados, fechados
+// e tempo até o fechamento (média exata, p50/p95 de um histograma log-linear), além do
+// total atual por status. Consultar nunca vai ao banco; a tabela só é lida uma vez na subida.
+// Só os incidentes ainda não fechados são acompanhados por id (CLOSED é final), para saber
+// de qual status cada transição sai.
+@Component
+public class IncidentStatsRollup {
+
+    private final int hourlyBuckets;
+    private final int dailyBuckets;
+    private final long[] countsByStatus = new long[IncidentStatus.values().length];
+    private final Map<Long, Tracked> notClosed = new HashMap<>();
+    private final TreeMap<LocalDateTime, Rollup> hourly = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Rollup> daily = new TreeMap<>();
+
+    @Autowired
+    public IncidentStatsRollup(@Value("${incident.stats.hourly-buckets:168}") int hourlyBuckets,
+                               @Value("${incident.stats.daily-buckets:90}") int dailyBuckets) {
+        this.hourlyBuckets = hourlyBuckets;
+        this.dailyBuckets = dailyBuckets;
+    }
+
+    // Carga inicial a partir de uma linha da tabela; uma linha já vista por uma escrita
+    // concorrente com a carga é ignorada pela versão
+    public synchronized void load(Long id, Long version, IncidentStatus status,
+                                  LocalDateTime createdAt, LocalDateTime closedAt) {
+        Tracked current = notClosed.get(id);
+        if (current != null && !current.isOlderThan(version)) {
+            return;
+        }
+        if (current == null) {
+            recordCreated(createdAt);
+        } else {
+            countsByStatus[current.status().ordinal()]--;
+        }
+        countsByStatus[status.ordinal()]++;
+        if (status == IncidentStatus.CLOSED) {
+            notClosed.remove(id);
+            recordClosed(createdAt, closedAt);
+        } else {
+            notClosed.put(id, new Tracked(version, status));
+        }
+    }
+
+    // Incidentes arquivados fechados antes da retenção dos buckets: só entram no total de CLOSED
+    public synchronized void loadArchived(long closed) {
+        countsByStatus[IncidentStatus.CLOSED.ordinal()] += closed;
+    }
+
+    // Início do bucket mais antigo mantido; eventos anteriores não entram em nenhum bucket
+    public LocalDateTime retainedSince() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hour = now.truncatedTo(ChronoUnit.HOURS).minusHours(hourlyBuckets - 1);
+        LocalDateTime day = now.truncatedTo(ChronoUnit.DAYS).minusDays(dailyBuckets - 1);
+        return hour.isBefore(day) ? hour : day;
+    }
+
+    // Estado salvo de um incidente após criação, edição ou mudança de status
+    public synchronized void record(IncidentResponseDTO incident) {
+        Long id = incident.getIdIncident();
+        IncidentStatus status = incident.getStatus();
+        Tracked current = notClosed.get(id);
+        if (current == null) {
+            // Só a versão inicial é uma criação; qualquer outra é uma publicação atrasada
+            // de um incidente que já foi fechado
+            if (isInitialVersion(incident.getVersion()) && status != IncidentStatus.CLOSED) {
+                countsByStatus[status.ordinal()]++;
+                notClosed.put(id, new Tracked(incident.getVersion(), status));
+                recordCreated(incident.getCreatedAt());
+            }
+            return;
+        }
+        if (!current.isOlderThan(incident.getVersion())) {
+            return;
+        }
+        countsByStatus[current.status().ordinal()]--;
+        countsByStatus[status.ordinal()]++;
+        if (status == IncidentStatus.CLOSED) {
+            notClosed.remove(id);
+            recordClosed(incident.getCreatedAt(), incident.getClosedAt());
+        } else {
+            notClosed.put(id, new Tracked(incident.getVersion(), status));
+        }
+    }
+
+    // Remoção só corrige o total por status; os buckets registram o que aconteceu
+    public synchronized void deleted(Long id, IncidentStatus status) {
+        Tracked current = notClosed.remove(id);
+        IncidentStatus last = current != null ? current.status() : status;
+        if (last != null && countsByStatus[last.ordinal()] > 0) {
+            countsByStatus[last.ordinal()]--;
+        }
+    }
+
+    // Últimas horas e dias, do bucket mais antigo até o atual, incluindo os vazios
+    public synchronized IncidentStatsDTO snapshot(int hours, int days) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<IncidentStatus, Long> current = new EnumMap<>(IncidentStatus.class);
+        for (IncidentStatus status : IncidentStatus.values()) {
+            current.put(status, countsByStatus[status.ordinal()]);
+        }
+        return new IncidentStatsDTO(current,
+                buckets(hourly, now.truncatedTo(ChronoUnit.HOURS), ChronoUnit.HOURS,
+                        Math.max(1, Math.min(hours, hourlyBuckets))),
+                buckets(daily, now.truncatedTo(ChronoUnit.DAYS), ChronoUnit.DAYS,
+                        Math.max(1, Math.min(days, dailyBuckets))));
+    }
+
+    private List<StatsBucketDTO> buckets(TreeMap<LocalDateTime, Rollup> rollups, LocalDateTime last,
+                                         ChronoUnit unit, int count) {
+        List<StatsBucketDTO> buckets = new ArrayList<>(count);
+        for (LocalDateTime start = last.minus(count - 1, unit); !start.isAfter(last); start = start.plus(1, unit)) {
+            Rollup rollup = rollups.get(start);
+            buckets.add(rollup == null ? new StatsBucketDTO(start, 0, 0, null, null, null) : rollup.toDTO(start));
+        }
+        return buckets;
+    }
+
+    private void recordCreated(LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return;
+        }
+        Rollup hour = rollup(hourly, createdAt.truncatedTo(ChronoUnit.HOURS), ChronoUnit.HOURS, hourlyBuckets);
+        Rollup day = rollup(daily, createdAt.truncatedTo(ChronoUnit.DAYS), ChronoUnit.DAYS, dailyBuckets);
+        if (hour != null) {
+            hour.created++;
+        }
+        if (day != null) {
+            day.created++;
+        }
+    }
+
+    // Tempo até o fechamento entra no bucket de quando o incidente foi fechado
+    private void recordClosed(LocalDateTime createdAt, LocalDateTime closedAt) {
+        if (closedAt == null) {
+            return;
+        }
+        long seconds = createdAt == null ? 0 : Math.max(0, Duration.between(createdAt, closedAt).toSeconds());
+        Rollup hour = rollup(hourly, closedAt.truncatedTo(ChronoUnit.HOURS), ChronoUnit.HOURS, hourlyBuckets);
+        Rollup day = rollup(daily, closedAt.truncatedTo(ChronoUnit.DAYS), ChronoUnit.DAYS, dailyBuckets);
+        if (hour != null) {
+            hour.recordClose(seconds);
+        }
+        if (day != null) {
+            day.recordClose(seconds);
+        }
+    }
+
+    // Bucket do instante, criado sob demanda; os que saíram da retenção são descartados
+    private Rollup rollup(TreeMap<LocalDateTime, Rollup> rollups, LocalDateTime start, ChronoUnit unit, int retention) {
+        LocalDateTime oldest = LocalDateTime.now().truncatedTo(unit).minus(retention - 1, unit);
+        if (start.isBefore(oldest)) {
+            return null;
+        }
+        Rollup rollup = rollups.get(start);
+        if (rollup == null) {
+            rollups.headMap(oldest).clear();
+            rollup = new Rollup();
+            rollups.put(start, rollup);
+        }
+        return rollup;
+    }
+
+    private static boolean isInitialVersion(Long version) {
+        return version == null || version == 0;
+    }
+
+    private record Tracked(Long version, IncidentStatus status) {
+        boolean isOlderThan(Long candidate) {
+            return version == null || candidate == null || version < candidate;
+        }
+    }
+
+    private static final class Rollup {
+
+        private long created;
+        private long closed;
+        private long closeSeconds;
+        private final DurationHistogram timeToClose = new DurationHistogram();
+
+        void recordClose(long seconds) {
+            closed++;
+            closeSeconds += seconds;
+            timeToClose.record(seconds);
+        }
+
+        StatsBucketDTO toDTO(LocalDateTime start) {
+            if (closed == 0) {
+                return new StatsBucketDTO(start, created, 0, null, null, null);
+            }
+            return new StatsBucketDTO(start, created, closed, (double) closeSeconds / closed,
+                    timeToClose.percentile(0.50), timeToClose.percentile(0.95));
+        }
+    }
+
+    // Histograma log-linear no estilo do HdrHistogram: valores abaixo de 64 têm bucket próprio,
+    // acima disso cada potência de dois é dividida em 32 sub-buckets (erro relativo até ~3%),
+    // então poucos KB cobrem de segundos a anos. O resultado é limitado ao mínimo/máximo exatos.
+    static final class DurationHistogram {
+
+        private static final int LINEAR = 64;
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR_BITS = 6;
+
+        private long[] counts = new long[0];
+        private long total;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        void record(long value) {
+            int index = index(Math.max(0, value));
+            if (index >= counts.length) {
+                counts = Arrays.copyOf(counts, index + 1);
+            }
+            counts[index]++;
+            total++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        Long percentile(double quantile) {
+            if (total == 0) {
+                return null;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int index = 0; index < counts.length; index++) {
+                seen += counts[index];
+                if (seen >= rank) {
+                    long value = lowerBound(index) + width(index) / 2;
+                    return Math.max(min, Math.min(max, value));
+                }
+            }
+            return max;
+        }
+
+        static int index(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) ((value >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+            return LINEAR + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+        }
+
+        static long lowerBound(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int exponent = (index - LINEAR) / SUB_BUCKETS + LINEAR_BITS;
+            long subBucket = (index - LINEAR) % SUB_BUCKETS;
+            return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        private static long width(int index) {
+            if (index < LINEAR) {
+                return 1;
+            }
+            return 1L << ((index - LINEAR) / SUB_BUCKETS + LINEAR_BITS - SUB_BUCKET_BITS);
+        }
+    }
+}
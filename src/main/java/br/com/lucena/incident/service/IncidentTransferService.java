@@ -0,0 +1,242 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.ImportResultDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.ArchivedIncident;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEvent;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.repository.IncidentRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+// Exportação e importação em massa no formato de IncidentSnapshotFormat, para backups, para
+// popular ambientes e para o reinício rápido. A exportação percorre histórico, arquivo e
+// incidentes pelos cursores JDBC do repositório; a importação grava lotes de batch-size linhas,
+// cada um numa transação com um INSERT em batch JDBC, preservando ids, datas, ocorrências e
+// versão. Incidentes sem histórico no arquivo ganham o evento CREATED.
+@Service
+@Timed("incident.transfer")
+public class IncidentTransferService {
+
+    private IncidentRepository incidentRepository;
+    private IncidentService incidentService;
+    private IncidentEventLog eventLog;
+    private IncidentIdAllocator idAllocator;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private int batchSize;
+
+    @Autowired
+    public IncidentTransferService(IncidentRepository incidentRepository,
+                                   IncidentService incidentService,
+                                   IncidentEventLog eventLog,
+                                   IncidentIdAllocator idAllocator,
+                                   TransactionTemplate transactionTemplate,
+                                   EntityManager entityManager,
+                                   @Value("${incident.transfer.batch-size:1000}") int batchSize) {
+        this.incidentRepository = incidentRepository;
+        this.incidentService = incidentService;
+        this.eventLog = eventLog;
+        this.idAllocator = idAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Devolve quantos incidentes foram escritos. Histórico, arquivados e incidentes saem da mesma
+    // transação, então o arquivo é um retrato consistente das três tabelas.
+    @Transactional(readOnly = true)
+    public long exportTo(WritableByteChannel channel) throws IOException {
+        IncidentSnapshotFormat.Writer writer = new IncidentSnapshotFormat.Writer(channel);
+        try {
+            incidentRepository.forEachEvent(event -> unchecked(() -> writer.write(event)));
+            incidentRepository.forEachArchivedIncident(incident -> unchecked(() -> writer.write(incident)));
+            incidentRepository.forEachIncident(incident -> unchecked(() -> writer.write(incident)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return writer.finish();
+    }
+
+    // Ids que já existem são pulados, então repetir uma importação não duplica nada. Os lotes são
+    // confirmados um a um: um arquivo inválido no meio deixa gravados os lotes anteriores.
+    public ImportResultDTO importFrom(ReadableByteChannel channel) throws IOException {
+        return importFrom(channel, true);
+    }
+
+    // publish=false na carga da inicialização, quando as estruturas em memória ainda vão ser
+    // montadas a partir da tabela
+    ImportResultDTO importFrom(ReadableByteChannel channel, boolean publish) throws IOException {
+        IncidentSnapshotFormat.Reader reader = new IncidentSnapshotFormat.Reader(channel);
+        HistoryCursor cursor = new HistoryCursor();
+        AtomicLong maxId = new AtomicLong();
+        try {
+            Counts events = inBatches(reader::nextEvent, batch -> insertEvents(batch, cursor));
+            Counts archived = inBatches(reader::nextArchived, batch -> {
+                maxId.accumulateAndGet(batch.stream().mapToLong(ArchivedIncident::getIdIncident).max().orElseThrow(),
+                        Math::max);
+                return insertArchived(batch);
+            });
+            Counts incidents = inBatches(reader::next, batch -> {
+                maxId.accumulateAndGet(batch.stream().mapToLong(Incident::getIdIncident).max().orElseThrow(),
+                        Math::max);
+                return insert(batch, publish);
+            });
+            long imported = archived.inserted() + incidents.inserted();
+            return new ImportResultDTO(imported, archived.read() + incidents.read() - imported, events.inserted());
+        } finally {
+            // Uma vez, no fim, inclusive quando o arquivo falha no meio: os lotes já confirmados ficam
+            if (maxId.get() > 0) {
+                idAllocator.advancePast(maxId.get());
+            }
+        }
+    }
+
+    private <T> Counts inBatches(Source<T> source, ToIntFunction<List<T>> insert) throws IOException {
+        List<T> batch = new ArrayList<>(batchSize);
+        long read = 0;
+        long inserted = 0;
+        for (T item = source.next(); item != null; item = source.next()) {
+            batch.add(item);
+            read++;
+            if (batch.size() == batchSize) {
+                inserted += insert.applyAsInt(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            inserted += insert.applyAsInt(batch);
+        }
+        return new Counts(read, inserted);
+    }
+
+    // O histórico de um incidente só é restaurado se o id ainda não existe aqui: nem na tabela, nem
+    // no arquivo, nem com eventos próprios. Os eventos vêm em ordem de incidente, então a decisão
+    // sobre o último incidente de um lote continua valendo no início do seguinte.
+    private int insertEvents(List<IncidentEvent> batch, HistoryCursor cursor) {
+        return transactionTemplate.execute(tx -> {
+            List<Long> ids = batch.stream().map(IncidentEvent::getIdIncident).distinct()
+                    .filter(id -> !id.equals(cursor.idIncident))
+                    .toList();
+            Set<Long> present = new HashSet<>();
+            if (!ids.isEmpty()) {
+                present.addAll(incidentRepository.findExistingIds(ids));
+                present.addAll(incidentRepository.findArchivedIds(ids));
+                present.addAll(eventLog.latest(ids).keySet());
+            }
+            List<IncidentEvent> restored = new ArrayList<>();
+            for (IncidentEvent event : batch) {
+                if (!event.getIdIncident().equals(cursor.idIncident)) {
+                    cursor.idIncident = event.getIdIncident();
+                    cursor.restore = !present.contains(event.getIdIncident());
+                }
+                if (cursor.restore) {
+                    restored.add(event);
+                }
+            }
+            eventLog.restore(restored);
+            entityManager.flush();
+            entityManager.clear();
+            return restored.size();
+        });
+    }
+
+    private int insertArchived(List<ArchivedIncident> batch) {
+        List<Long> ids = batch.stream().map(ArchivedIncident::getIdIncident).toList();
+        return transactionTemplate.execute(tx -> {
+            Set<Long> seen = new HashSet<>(incidentRepository.findExistingIds(ids));
+            seen.addAll(incidentRepository.findArchivedIds(ids));
+            List<ArchivedIncident> fresh = batch.stream().filter(incident -> seen.add(incident.getIdIncident())).toList();
+            if (!fresh.isEmpty()) {
+                incidentRepository.insertArchived(fresh);
+            }
+            return fresh.size();
+        });
+    }
+
+    private int insert(List<Incident> batch, boolean publish) {
+        List<Long> ids = batch.stream().map(Incident::getIdIncident).toList();
+        List<IncidentResponseDTO> inserted = transactionTemplate.execute(tx -> {
+            Set<Long> seen = new HashSet<>(incidentRepository.findExistingIds(ids));
+            seen.addAll(incidentRepository.findArchivedIds(ids));
+            List<Incident> fresh = batch.stream().filter(incident -> seen.add(incident.getIdIncident())).toList();
+            if (fresh.isEmpty()) {
+                return List.of();
+            }
+            List<Incident> created = continueHistory(fresh);
+            incidentRepository.insertAll(fresh);
+            eventLog.appendAll(IncidentEventType.CREATED, created.stream().map(incidentService::mapToDTO).toList());
+            // Com open-in-view a requisição inteira usa o mesmo contexto de persistência: sem limpar,
+            // os eventos de todos os lotes anteriores seriam revisados em cada flush
+            entityManager.flush();
+            entityManager.clear();
+            return fresh.stream().map(incidentService::mapToDTO).toList();
+        });
+        if (publish) {
+            incidentService.imported(inserted);
+        }
+        return inserted.size();
+    }
+
+    // Incidentes que precisam de um evento CREATED: os sem histórico e os que voltam depois de
+    // excluídos. Estes ainda têm o histórico, com o DELETED na última versão, e voltam na versão
+    // seguinte, então o CREATED e as próximas mudanças não colidem com as versões já gravadas
+    // (uk_incident_events_incident_version). O histórico restaurado junto no mesmo arquivo já
+    // termina na versão do incidente e dispensa o evento.
+    private List<Incident> continueHistory(List<Incident> incidents) {
+        Map<Long, IncidentEvent> latest = eventLog.latest(incidents.stream().map(Incident::getIdIncident).toList());
+        List<Incident> created = new ArrayList<>();
+        for (Incident incident : incidents) {
+            IncidentEvent last = latest.get(incident.getIdIncident());
+            if (last == null) {
+                created.add(incident);
+            } else if (last.getType() == IncidentEventType.DELETED || !last.getVersion().equals(incident.getVersion())) {
+                incident.setVersion(Math.max(incident.getVersion(), last.getVersion() + 1));
+                created.add(incident);
+            }
+        }
+        return created;
+    }
+
+    private static void unchecked(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private interface Source<T> {
+        T next() throws IOException;
+    }
+
+    private record Counts(long read, long inserted) {}
+
+    // Último incidente visto na seção de eventos e se o histórico dele está sendo restaurado
+    private static final class HistoryCursor {
+        private Long idIncident;
+        private boolean restore;
+    }
+}
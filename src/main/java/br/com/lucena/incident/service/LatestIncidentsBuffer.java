@@ -0,0 +1,109 @@
+package br.com.lucena.incident.service;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+// Janela materializada dos N incidentes mais recentes, mantida nas escritas.
+// Cada escrita troca um snapshot imutável via CAS, então leitores nunca bloqueiam
+// e escritores concorrentes apenas repetem a cópia (O(N)) em caso de disputa.
+@Component
+public class LatestIncidentsBuffer {
+
+    private static final int MAX_RESEED_ATTEMPTS = 3;
+
+    static final Comparator<IncidentResponseDTO> NEWEST_FIRST = Comparator
+            .comparing(IncidentResponseDTO::getCreatedAt, Comparator.nullsFirst(Comparator.reverseOrder()))
+            .thenComparing(IncidentResponseDTO::getIdIncident, Comparator.nullsFirst(Comparator.reverseOrder()));
+
+    private final int size;
+    // Folga acima de N para absorver exclusões sem precisar voltar ao banco
+    private final int capacity;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(List.of(), false));
+
+    public LatestIncidentsBuffer(@Value("${incident.latest.size:20}") int size) {
+        this.size = size;
+        this.capacity = size * 2;
+    }
+
+    public List<IncidentResponseDTO> latest() {
+        List<IncidentResponseDTO> items = snapshot.get().items();
+        return items.size() <= size ? items : items.subList(0, size);
+    }
+
+    public void upsert(IncidentResponseDTO incident) {
+        snapshot.updateAndGet(current -> current.upsert(incident, capacity));
+    }
+
+    public void remove(Long id) {
+        snapshot.updateAndGet(current -> current.remove(id));
+    }
+
+    // Verdadeiro quando exclusões consumiram a folga e o banco pode ter linhas fora da janela
+    public boolean isUnderfilled() {
+        Snapshot current = snapshot.get();
+        return !current.complete() && current.items().size() < size;
+    }
+
+    // Recarrega a janela a partir do banco. O CAS só vence se nenhuma escrita
+    // aconteceu durante a consulta; escritas posteriores se aplicam por cima,
+    // pois upsert/remove são idempotentes por id.
+    public void reseed(IntFunction<List<IncidentResponseDTO>> loader) {
+        for (int attempt = 0; attempt < MAX_RESEED_ATTEMPTS; attempt++) {
+            Snapshot seen = snapshot.get();
+            List<IncidentResponseDTO> rows = loader.apply(capacity);
+            if (snapshot.compareAndSet(seen, new Snapshot(List.copyOf(rows), rows.size() < capacity))) {
+                return;
+            }
+        }
+    }
+
+    // complete = a janela contém todos os incidentes existentes no banco
+    private record Snapshot(List<IncidentResponseDTO> items, boolean complete) {
+
+        Snapshot upsert(IncidentResponseDTO incident, int capacity) {
+            List<IncidentResponseDTO> next = new ArrayList<>(items.size() + 1);
+            boolean present = false;
+            for (IncidentResponseDTO item : items) {
+                if (item.getIdIncident().equals(incident.getIdIncident())) {
+                    if (IncidentCache.isOlder(incident, item)) {
+                        return new Snapshot(items, complete);
+                    }
+                    present = true;
+                } else {
+                    next.add(item);
+                }
+            }
+
+            int position = 0;
+            while (position < next.size() && NEWEST_FIRST.compare(next.get(position), incident) < 0) {
+                position++;
+            }
+            if (!present && !complete && position == next.size()) {
+                // Mais antigo que a janela: nada muda, mas um novo snapshot
+                // sinaliza a escrita para um reseed concorrente
+                return new Snapshot(items, complete);
+            }
+
+            next.add(position, incident);
+            boolean stillComplete = complete;
+            if (next.size() > capacity) {
+                next.remove(next.size() - 1);
+                stillComplete = false;
+            }
+            return new Snapshot(List.copyOf(next), stillComplete);
+        }
+
+        Snapshot remove(Long id) {
+            return new Snapshot(items.stream()
+                    .filter(item -> !item.getIdIncident().equals(id))
+                    .toList(), complete);
+        }
+    }
+}
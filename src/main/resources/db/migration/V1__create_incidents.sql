@@ -0,0 +1,23 @@
+-- Esquema inicial: o mesmo que o Hibernate gerava com ddl-auto=update.
+-- SQL portável entre H2 e PostgreSQL.
+
+-- Alocação em blocos de 50 (allocationSize do @SequenceGenerator em Incident)
+CREATE SEQUENCE incidents_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE incidents (
+    id_incident BIGINT       NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(1000) NOT NULL,
+    status      VARCHAR(255) NOT NULL CHECK (status IN ('OPEN', 'IN_PROGRESS', 'RESOLVED', 'CLOSED')),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    closed_at   TIMESTAMP(6),
+    version     BIGINT       NOT NULL,
+    PRIMARY KEY (id_incident)
+);
+
+-- Listagem geral e /latest: keyset por (created_at, id_incident)
+CREATE INDEX idx_incidents_created_at_id ON incidents (created_at, id_incident);
+
+-- Listagem por status e contagem agrupada por status
+CREATE INDEX idx_incidents_status_created_at_id ON incidents (status, created_at, id_incident);
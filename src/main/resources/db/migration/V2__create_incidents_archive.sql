@@ -0,0 +1,21 @@
+-- Arquivo dos incidentes fechados há mais tempo que a retenção (IncidentArchiver).
+-- Mesmas colunas de incidents mais o instante do arquivamento; só recebe linhas CLOSED,
+-- que são finais, então não há sequência nem checagem de transição aqui.
+CREATE TABLE incidents_archive (
+    id_incident BIGINT       NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(1000) NOT NULL,
+    status      VARCHAR(255) NOT NULL CHECK (status IN ('OPEN', 'IN_PROGRESS', 'RESOLVED', 'CLOSED')),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    closed_at   TIMESTAMP(6),
+    version     BIGINT       NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id_incident)
+);
+
+-- Carga das métricas na subida: arquivados fechados dentro da retenção dos buckets
+CREATE INDEX idx_incidents_archive_closed_at ON incidents_archive (closed_at);
+
+-- Seleção dos lotes a arquivar: status = 'CLOSED' AND closed_at < corte, em ordem de closed_at
+CREATE INDEX idx_incidents_status_closed_at ON incidents (status, closed_at);
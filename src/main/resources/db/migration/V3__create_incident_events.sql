@@ -0,0 +1,25 @@
+-- Log append-only das mutações de incidentes, gravado na mesma transação da escrita.
+-- Cada evento guarda só o que mudou; CREATED e a cada N versões o evento é um snapshot
+-- com o estado completo, então reconstruir um instante lê no máximo N linhas.
+-- Sem FK para incidents: o histórico sobrevive à exclusão e ao arquivamento.
+
+-- Alocação em blocos de 50 (allocationSize do @SequenceGenerator em IncidentEvent)
+CREATE SEQUENCE incident_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE incident_events (
+    id_event    BIGINT       NOT NULL,
+    id_incident BIGINT       NOT NULL,
+    version     BIGINT       NOT NULL,
+    type        VARCHAR(255) NOT NULL CHECK (type IN ('CREATED', 'UPDATED', 'STATUS_CHANGED', 'DELETED')),
+    snapshot    BOOLEAN      NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    name        VARCHAR(255),
+    description VARCHAR(1000),
+    status      VARCHAR(255) CHECK (status IN ('OPEN', 'IN_PROGRESS', 'RESOLVED', 'CLOSED')),
+    created_at  TIMESTAMP(6),
+    closed_at   TIMESTAMP(6),
+    PRIMARY KEY (id_event)
+);
+
+-- Histórico de um incidente em ordem de versão; também impede dois eventos para a mesma versão
+CREATE UNIQUE INDEX uk_incident_events_incident_version ON incident_events (id_incident, version);
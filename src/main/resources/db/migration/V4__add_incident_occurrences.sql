@@ -0,0 +1,5 @@
+-- Contador de ocorrências: criações duplicadas dentro da janela de deduplicação são
+-- agregadas no incidente aberto em vez de gerar uma linha nova (IncidentDeduplicator)
+ALTER TABLE incidents ADD COLUMN occurrences BIGINT DEFAULT 1 NOT NULL;
+
+ALTER TABLE incidents_archive ADD COLUMN occurrences BIGINT DEFAULT 1 NOT NULL;
@@ -0,0 +1,92 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.InvalidStatusTransitionException;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.service.IncidentArchiver;
+import br.com.lucena.incident.service.IncidentCache;
+import br.com.lucena.incident.service.IncidentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Arquivamento contra o H2 real: lotes com SELECT ... FOR UPDATE, cópia por INSERT ... SELECT
+// e leitura por id caindo no arquivo
+class IncidentArchiverTest {
+
+    private ConfigurableApplicationContext context;
+    private IncidentService incidentService;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:archivertest",
+                        "--incident.archive.retention=P1D",
+                        "--incident.archive.batch-size=2",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN");
+        incidentService = context.getBean(IncidentService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void archive_ShouldMoveOnlyIncidentsClosedBeforeRetentionInBatches() {
+        List<IncidentResponseDTO> old = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            old.add(close(create("Old outage " + i)));
+        }
+        IncidentResponseDTO recent = close(create("Recent outage"));
+        IncidentResponseDTO open = create("Open outage");
+        jdbcTemplate.update("UPDATE incidents SET closed_at = ? WHERE status = 'CLOSED' AND id_incident <> ?",
+                LocalDateTime.now().minusDays(2), recent.getIdIncident());
+
+        int archived = context.getBean(IncidentArchiver.class).archiveClosedIncidents();
+
+        assertEquals(3, archived);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM incidents", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM incidents_archive", Integer.class));
+        assertEquals(IncidentStatus.OPEN, incidentService.getIncidentById(open.getIdIncident()).getStatus());
+
+        // Sem o cache a leitura precisa ir ao arquivo
+        Long oldId = old.get(0).getIdIncident();
+        context.getBean(IncidentCache.class).evict(oldId);
+        IncidentResponseDTO fromArchive = incidentService.getIncidentById(oldId);
+        assertEquals("Old outage 0", fromArchive.getName());
+        assertEquals(IncidentStatus.CLOSED, fromArchive.getStatus());
+        assertThrows(InvalidStatusTransitionException.class,
+                () -> incidentService.updateStatus(oldId, IncidentStatus.IN_PROGRESS));
+
+        assertEquals(2, incidentService.search("outage", 0, 10).getTotal());
+        assertEquals(0, context.getBean(IncidentArchiver.class).archiveClosedIncidents());
+    }
+
+    private IncidentResponseDTO create(String name) {
+        return incidentService.createIncident(new IncidentRequestDTO(name, "Service unavailable for users", null, null));
+    }
+
+    private IncidentResponseDTO close(IncidentResponseDTO incident) {
+        for (IncidentStatus status : List.of(IncidentStatus.IN_PROGRESS, IncidentStatus.RESOLVED, IncidentStatus.CLOSED)) {
+            incident = incidentService.updateStatus(incident.getIdIncident(), status);
+        }
+        return incident;
+    }
+}
@@ -0,0 +1,126 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.BatchResultDTO;
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.StatusTransitionDTO;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentEventRepository;
+import br.com.lucena.incident.repository.IncidentRepository;
+import br.com.lucena.incident.service.IncidentBatchService;
+import br.com.lucena.incident.service.IncidentCache;
+import br.com.lucena.incident.service.IncidentChangeTracker;
+import br.com.lucena.incident.service.IncidentDeduplicator;
+import br.com.lucena.incident.service.IncidentEventBroadcaster;
+import br.com.lucena.incident.service.IncidentEventLog;
+import br.com.lucena.incident.service.IncidentSearchIndex;
+import br.com.lucena.incident.service.IncidentService;
+import br.com.lucena.incident.service.IncidentStatsRollup;
+import br.com.lucena.incident.service.LatestIncidentsBuffer;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncidentBatchServiceTest {
+
+    @Mock
+    private IncidentRepository incidentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IncidentEventBroadcaster eventBroadcaster;
+
+    @Mock
+    private IncidentEventRepository eventRepository;
+
+    private IncidentBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        IncidentEventLog eventLog = new IncidentEventLog(eventRepository, 20);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        IncidentService incidentService = new IncidentService(incidentRepository,
+                new IncidentCache(100, Duration.ofMinutes(1)), new LatestIncidentsBuffer(20),
+                new IncidentSearchIndex(), eventBroadcaster, new IncidentStatsRollup(168, 90),
+                eventLog, new IncidentDeduplicator(true, Duration.ofMinutes(10), 1000), new IncidentChangeTracker(),
+                transactionTemplate);
+        batchService = new IncidentBatchService(incidentRepository, incidentService, eventLog,
+                transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    @Test
+    void createIncidents_ShouldSaveValidItemsInChunksAndReportInvalidOnes() {
+        when(incidentRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Incident> saved = new ArrayList<>();
+            long id = 1;
+            for (Incident incident : invocation.<Iterable<Incident>>getArgument(0)) {
+                incident.setIdIncident(id++);
+                incident.setCreatedAt(LocalDateTime.now());
+                saved.add(incident);
+            }
+            return saved;
+        });
+
+        BatchResultDTO result = batchService.createIncidents(List.of(
+                new IncidentRequestDTO("Disk full", "Disk is full on node-1", null, null),
+                new IncidentRequestDTO("x", "short", null, null),
+                new IncidentRequestDTO("CPU high", "CPU above 95 percent", null, null),
+                new IncidentRequestDTO("Memory leak", "Heap keeps growing on api", null, null)));
+
+        assertEquals(3, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals(400, result.getResults().get(1).getStatus());
+        assertNotNull(result.getResults().get(1).getError());
+        assertEquals(201, result.getResults().get(3).getStatus());
+        assertEquals("Memory leak", result.getResults().get(3).getIncident().getName());
+        verify(incidentRepository, times(2)).saveAll(anyIterable());
+        // Um saveAll de eventos por chunk, na mesma transação dos incidentes
+        verify(eventRepository, times(2)).saveAll(anyIterable());
+    }
+
+    @Test
+    void updateStatuses_ShouldLoadChunkOnceAndReportMissingAndInvalidTransitions() {
+        Incident incident = new Incident();
+        incident.setIdIncident(1L);
+        incident.setName("Disk full");
+        incident.setDescription("Disk is full on node-1");
+        incident.setStatus(IncidentStatus.RESOLVED);
+        incident.setCreatedAt(LocalDateTime.now());
+        when(incidentRepository.findAllById(anyIterable())).thenReturn(List.of(incident));
+
+        BatchResultDTO result = batchService.updateStatuses(List.of(
+                new StatusTransitionDTO(1L, IncidentStatus.CLOSED),
+                new StatusTransitionDTO(2L, IncidentStatus.CLOSED),
+                new StatusTransitionDTO(null, IncidentStatus.CLOSED),
+                new StatusTransitionDTO(1L, IncidentStatus.IN_PROGRESS)));
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        assertEquals(IncidentStatus.CLOSED, result.getResults().get(0).getIncident().getStatus());
+        assertNotNull(result.getResults().get(0).getIncident().getClosedAt());
+        assertEquals(404, result.getResults().get(1).getStatus());
+        assertEquals(400, result.getResults().get(2).getStatus());
+        // O item 0 já fechou o incidente dentro do mesmo chunk
+        assertEquals(422, result.getResults().get(3).getStatus());
+        // Três itens válidos com chunk de 2: um SELECT ... IN por chunk
+        verify(incidentRepository, times(2)).findAllById(anyIterable());
+    }
+}
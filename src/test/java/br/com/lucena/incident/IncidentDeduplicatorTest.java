@@ -0,0 +1,174 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.service.IncidentDeduplicator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncidentDeduplicatorTest {
+
+    private IncidentDeduplicator deduplicator;
+    private AtomicLong ids;
+    private AtomicInteger inserts;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new IncidentDeduplicator(true, Duration.ofMinutes(10), 1000);
+        ids = new AtomicLong();
+        inserts = new AtomicInteger();
+    }
+
+    @Test
+    void createOrCoalesce_WithSameContent_ShouldCreateOnceAndCountOccurrences() {
+        IncidentDeduplicator.Outcome first = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        IncidentDeduplicator.Outcome second = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        IncidentDeduplicator.Outcome third = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+
+        assertNotNull(first.created());
+        assertNull(second.created());
+        assertEquals(first.idIncident(), third.idIncident());
+        assertEquals(3, third.occurrences());
+        assertEquals(1, inserts.get());
+        assertEquals(Map.of(first.idIncident(), 2L), deduplicator.drainPending());
+        assertEquals(Map.of(), deduplicator.drainPending());
+    }
+
+    @Test
+    void createOrCoalesce_WithDedupKey_ShouldIgnoreContent() {
+        IncidentDeduplicator.Outcome first = deduplicator.createOrCoalesce(request("Disk full", "db-1/disk"), this::insert);
+        IncidentDeduplicator.Outcome other = deduplicator.createOrCoalesce(request("Disk almost full", "db-1/disk"), this::insert);
+        IncidentDeduplicator.Outcome sameContent = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+
+        assertEquals(first.idIncident(), other.idIncident());
+        assertNotEquals(first.idIncident(), sameContent.idIncident());
+        assertEquals(2, inserts.get());
+    }
+
+    @Test
+    void createOrCoalesce_AfterIncidentIsResolved_ShouldCreateNewIncident() {
+        IncidentDeduplicator.Outcome first = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        IncidentResponseDTO resolved = incident(first.idIncident());
+        resolved.setStatus(IncidentStatus.RESOLVED);
+
+        deduplicator.observe(resolved);
+        IncidentDeduplicator.Outcome next = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+
+        assertNotNull(next.created());
+        assertNotEquals(first.idIncident(), next.idIncident());
+    }
+
+    @Test
+    void createOrCoalesce_WhenCreationFails_ShouldLetNextCallCreate() {
+        assertThrows(IllegalStateException.class, () -> deduplicator.createOrCoalesce(request("Disk full", null), () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        IncidentDeduplicator.Outcome next = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+
+        assertNotNull(next.created());
+    }
+
+    @Test
+    void createOrCoalesce_Concurrently_ShouldInsertOnce() throws Exception {
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<IncidentDeduplicator.Outcome>> outcomes = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    return deduplicator.createOrCoalesce(request("Disk full", null), () -> {
+                        sleep();
+                        return insert();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<IncidentDeduplicator.Outcome> outcome : outcomes) {
+                assertEquals(1L, outcome.get().idIncident());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, inserts.get());
+        assertEquals(Map.of(1L, (long) threads - 1), deduplicator.drainPending());
+    }
+
+    @Test
+    void requeue_ShouldReturnCountsToNextDrain() {
+        IncidentDeduplicator.Outcome first = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        Map<Long, Long> failed = deduplicator.drainPending();
+        deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+
+        deduplicator.requeue(failed);
+
+        assertEquals(Map.of(first.idIncident(), 2L), deduplicator.drainPending());
+    }
+
+    @Test
+    void requeue_AfterWindowReleased_ShouldKeepCountsForNextDrain() {
+        IncidentDeduplicator.Outcome first = deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        deduplicator.createOrCoalesce(request("Disk full", null), this::insert);
+        Map<Long, Long> failed = deduplicator.drainPending();
+        deduplicator.release(first.idIncident());
+
+        deduplicator.requeue(failed);
+
+        assertEquals(Map.of(first.idIncident(), 2L), deduplicator.drainPending());
+        assertEquals(Map.of(), deduplicator.drainPending());
+    }
+
+    @Test
+    void createOrCoalesce_WhenDisabled_ShouldAlwaysCreate() {
+        IncidentDeduplicator disabled = new IncidentDeduplicator(false, Duration.ofMinutes(10), 1000);
+
+        disabled.createOrCoalesce(request("Disk full", null), this::insert);
+        disabled.createOrCoalesce(request("Disk full", null), this::insert);
+
+        assertEquals(2, inserts.get());
+        assertEquals(Map.of(), disabled.drainPending());
+    }
+
+    private IncidentResponseDTO insert() {
+        inserts.incrementAndGet();
+        return incident(ids.incrementAndGet());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static IncidentRequestDTO request(String name, String dedupKey) {
+        return new IncidentRequestDTO(name, "Database node ran out of disk", null, dedupKey);
+    }
+
+    private static IncidentResponseDTO incident(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        return new IncidentResponseDTO(id, "Disk full", "Database node ran out of disk", IncidentStatus.OPEN,
+                now, now, null, 0L, 1L);
+    }
+}
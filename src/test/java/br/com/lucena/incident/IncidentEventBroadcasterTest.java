@@ -0,0 +1,190 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentEventDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.service.IncidentEventBroadcaster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncidentEventBroadcasterTest {
+
+    private IncidentEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new IncidentEventBroadcaster(3, 5, Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void publish_ShouldDeliverEventsInOrderToEverySubscriber() throws InterruptedException {
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        broadcaster.subscribe(null, first);
+        broadcaster.subscribe(null, second);
+
+        broadcaster.publish(IncidentEventType.CREATED, incident(1L, IncidentStatus.OPEN));
+        broadcaster.publish(IncidentEventType.STATUS_CHANGED, incident(1L, IncidentStatus.IN_PROGRESS));
+        broadcaster.deleted(1L);
+
+        for (RecordingSink sink : List.of(first, second)) {
+            await(() -> sink.events.size() == 3);
+            assertEquals(List.of(IncidentEventType.CREATED, IncidentEventType.STATUS_CHANGED, IncidentEventType.DELETED),
+                    sink.events.stream().map(event -> ((IncidentEventDTO) event.data()).getType()).toList());
+            assertTrue(sink.events.get(0).id().endsWith("-1"));
+            assertNull(((IncidentEventDTO) sink.events.get(2).data()).getIncident());
+        }
+    }
+
+    @Test
+    void slowSubscriber_ShouldReceiveOnlyLatestStatePerIncident() throws InterruptedException {
+        RecordingSink slow = new RecordingSink();
+        slow.blockNextSend();
+        broadcaster.subscribe(null, slow);
+
+        broadcaster.publish(IncidentEventType.CREATED, incident(1L, IncidentStatus.OPEN));
+        await(() -> slow.blocked.getCount() == 0);
+        // Enquanto o primeiro envio está preso, três mudanças do incidente 2 e uma do 3
+        // estouram o buffer de 3 e são coalescidas
+        broadcaster.publish(IncidentEventType.CREATED, incident(2L, IncidentStatus.OPEN));
+        broadcaster.publish(IncidentEventType.STATUS_CHANGED, incident(2L, IncidentStatus.IN_PROGRESS));
+        broadcaster.publish(IncidentEventType.CREATED, incident(3L, IncidentStatus.OPEN));
+        broadcaster.publish(IncidentEventType.STATUS_CHANGED, incident(2L, IncidentStatus.RESOLVED));
+        slow.release();
+
+        await(() -> slow.events.size() == 3);
+        assertEquals(List.of(1L, 3L, 2L), slow.events.stream()
+                .map(event -> ((IncidentEventDTO) event.data()).getIdIncident()).toList());
+        assertEquals(IncidentStatus.RESOLVED, ((IncidentEventDTO) slow.events.get(2).data()).getIncident().getStatus());
+        assertFalse(slow.completed);
+    }
+
+    @Test
+    void subscriberThatOverflowsEvenAfterCoalescing_ShouldBeClosed() throws InterruptedException {
+        RecordingSink slow = new RecordingSink();
+        slow.blockNextSend();
+        broadcaster.subscribe(null, slow);
+
+        broadcaster.publish(IncidentEventType.CREATED, incident(1L, IncidentStatus.OPEN));
+        await(() -> slow.blocked.getCount() == 0);
+        for (long id = 2; id <= 5; id++) {
+            broadcaster.publish(IncidentEventType.CREATED, incident(id, IncidentStatus.OPEN));
+        }
+        slow.release();
+
+        await(() -> slow.completed);
+        assertEquals(1, slow.events.size());
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldReplayOnlyMissedEvents() throws InterruptedException {
+        RecordingSink live = new RecordingSink();
+        broadcaster.subscribe(null, live);
+        broadcaster.publish(IncidentEventType.CREATED, incident(1L, IncidentStatus.OPEN));
+        broadcaster.publish(IncidentEventType.CREATED, incident(2L, IncidentStatus.OPEN));
+        await(() -> live.events.size() == 2);
+        broadcaster.publish(IncidentEventType.CREATED, incident(3L, IncidentStatus.OPEN));
+
+        RecordingSink resumed = new RecordingSink();
+        broadcaster.subscribe(live.events.get(0).id(), resumed);
+
+        await(() -> resumed.events.size() == 2);
+        assertEquals(List.of(2L, 3L), resumed.events.stream()
+                .map(event -> ((IncidentEventDTO) event.data()).getIdIncident()).toList());
+    }
+
+    @Test
+    void subscribe_WithUnknownOrEvictedLastEventId_ShouldAskClientToReload() throws InterruptedException {
+        RecordingSink live = new RecordingSink();
+        broadcaster.subscribe(null, live);
+        for (long id = 1; id <= 8; id++) {
+            broadcaster.publish(IncidentEventType.CREATED, incident(id, IncidentStatus.OPEN));
+            long delivered = id;
+            await(() -> live.events.size() == delivered);
+        }
+
+        RecordingSink evicted = new RecordingSink();
+        broadcaster.subscribe(live.events.get(0).id(), evicted);
+        RecordingSink otherProcess = new RecordingSink();
+        broadcaster.subscribe("1-1", otherProcess);
+
+        await(() -> evicted.events.size() == 1 && otherProcess.events.size() == 1);
+        assertEquals("reset", evicted.events.get(0).name());
+        assertEquals(live.events.get(7).id(), evicted.events.get(0).id());
+        assertEquals("reset", otherProcess.events.get(0).name());
+    }
+
+    private IncidentResponseDTO incident(Long id, IncidentStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        return new IncidentResponseDTO(id, "Incident " + id, "Description " + id, status, now, now, null, 0L, 1L);
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private record Sent(String id, String name, Object data) {}
+
+    private static class RecordingSink implements IncidentEventBroadcaster.Sink {
+
+        private final List<Sent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch released = new CountDownLatch(1);
+        private CountDownLatch blocked = new CountDownLatch(0);
+        private volatile boolean block;
+        private volatile boolean completed;
+
+        void blockNextSend() {
+            block = true;
+            blocked = new CountDownLatch(1);
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        @Override
+        public void send(String id, String name, Object data) {
+            events.add(new Sent(id, name, data));
+            if (block) {
+                block = false;
+                blocked.countDown();
+                try {
+                    released.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
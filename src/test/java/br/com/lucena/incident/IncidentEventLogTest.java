@@ -0,0 +1,120 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentHistoryEntryDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentEvent;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentEventRepository;
+import br.com.lucena.incident.service.IncidentEventLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncidentEventLogTest {
+
+    @Mock
+    private IncidentEventRepository eventRepository;
+
+    private IncidentEventLog eventLog;
+    private LocalDateTime created;
+
+    @BeforeEach
+    void setUp() {
+        eventLog = new IncidentEventLog(eventRepository, 3);
+        created = LocalDateTime.of(2026, 3, 1, 10, 0);
+    }
+
+    @Test
+    void append_ShouldStoreDeltasAndFullSnapshotEveryNVersions() {
+        eventLog.append(IncidentEventType.CREATED, incident(0L, "Disk full", IncidentStatus.OPEN, created));
+        eventLog.append(IncidentEventType.STATUS_CHANGED, incident(1L, "Disk full", IncidentStatus.IN_PROGRESS, created.plusMinutes(5)));
+        eventLog.append(IncidentEventType.UPDATED, incident(3L, "Disk full on db-1", IncidentStatus.IN_PROGRESS, created.plusMinutes(9)));
+
+        ArgumentCaptor<IncidentEvent> events = ArgumentCaptor.forClass(IncidentEvent.class);
+        verify(eventRepository, times(3)).save(events.capture());
+        IncidentEvent createdEvent = events.getAllValues().get(0);
+        IncidentEvent statusEvent = events.getAllValues().get(1);
+        IncidentEvent snapshotEvent = events.getAllValues().get(2);
+
+        assertTrue(createdEvent.isSnapshot());
+        assertEquals(created, createdEvent.getCreatedAt());
+        assertFalse(statusEvent.isSnapshot());
+        assertEquals(IncidentStatus.IN_PROGRESS, statusEvent.getStatus());
+        assertNull(statusEvent.getDescription());
+        // Versão 3 com snapshot-every=3: estado completo, inclusive o status que não mudou
+        assertTrue(snapshotEvent.isSnapshot());
+        assertEquals(IncidentStatus.IN_PROGRESS, snapshotEvent.getStatus());
+        assertEquals("Disk full on db-1", snapshotEvent.getName());
+    }
+
+    @Test
+    void stateAt_ShouldReplayEventsAfterLatestSnapshot() {
+        LocalDateTime at = created.plusHours(2);
+        when(eventRepository.findReplayUntil(1L, at)).thenReturn(List.of(
+                new IncidentEvent(4L, 1L, 3L, IncidentEventType.UPDATED, true, created.plusMinutes(30),
+                        "Disk full", "Disk is full on db-1", IncidentStatus.IN_PROGRESS, created, null),
+                new IncidentEvent(5L, 1L, 4L, IncidentEventType.STATUS_CHANGED, false, created.plusMinutes(40),
+                        null, null, IncidentStatus.RESOLVED, null, null),
+                new IncidentEvent(6L, 1L, 5L, IncidentEventType.UPDATED, false, created.plusMinutes(50),
+                        "Disk full", "Freed 20GB of logs on db-1", null, null, null)));
+
+        IncidentResponseDTO state = eventLog.stateAt(1L, at).orElseThrow();
+
+        assertEquals(IncidentStatus.RESOLVED, state.getStatus());
+        assertEquals("Freed 20GB of logs on db-1", state.getDescription());
+        assertEquals(created, state.getCreatedAt());
+        assertEquals(created.plusMinutes(50), state.getUpdatedAt());
+        assertEquals(5L, state.getVersion());
+    }
+
+    @Test
+    void stateAt_AfterDeleteOrBeforeFirstSnapshot_ShouldBeEmpty() {
+        LocalDateTime at = created.plusHours(2);
+        when(eventRepository.findReplayUntil(1L, at)).thenReturn(List.of(
+                new IncidentEvent(1L, 1L, 0L, IncidentEventType.CREATED, true, created,
+                        "Disk full", "Disk is full on db-1", IncidentStatus.OPEN, created, null),
+                new IncidentEvent(2L, 1L, 1L, IncidentEventType.DELETED, false, created.plusMinutes(10),
+                        null, null, null, null, null)));
+        when(eventRepository.findReplayUntil(1L, created.minusMinutes(1))).thenReturn(List.of());
+
+        assertEquals(Optional.empty(), eventLog.stateAt(1L, at));
+        assertEquals(Optional.empty(), eventLog.stateAt(1L, created.minusMinutes(1)));
+    }
+
+    @Test
+    void history_ShouldResolvePreviousStatusOfEachTransition() {
+        when(eventRepository.findByIdIncidentOrderByVersionAsc(1L)).thenReturn(List.of(
+                new IncidentEvent(1L, 1L, 0L, IncidentEventType.CREATED, true, created,
+                        "Disk full", "Disk is full on db-1", IncidentStatus.OPEN, created, null),
+                new IncidentEvent(2L, 1L, 1L, IncidentEventType.STATUS_CHANGED, false, created.plusMinutes(5),
+                        null, null, IncidentStatus.IN_PROGRESS, null, null),
+                new IncidentEvent(3L, 1L, 2L, IncidentEventType.UPDATED, false, created.plusMinutes(9),
+                        "Disk full", "Freed 20GB of logs on db-1", null, null, null)));
+
+        List<IncidentHistoryEntryDTO> history = eventLog.history(1L);
+
+        assertEquals(3, history.size());
+        assertNull(history.get(0).getPreviousStatus());
+        assertEquals(IncidentStatus.OPEN, history.get(1).getPreviousStatus());
+        assertEquals(IncidentStatus.IN_PROGRESS, history.get(1).getStatus());
+        assertNull(history.get(1).getName());
+        assertEquals(IncidentStatus.IN_PROGRESS, history.get(2).getStatus());
+        assertEquals("Freed 20GB of logs on db-1", history.get(2).getDescription());
+    }
+
+    private IncidentResponseDTO incident(Long version, String name, IncidentStatus status, LocalDateTime updatedAt) {
+        return new IncidentResponseDTO(1L, name, "Disk is full on db-1", status, created, updatedAt, null, version, 1L);
+    }
+}
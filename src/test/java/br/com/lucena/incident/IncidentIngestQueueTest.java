@@ -0,0 +1,207 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.IngestQueueFullException;
+import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentEventRepository;
+import br.com.lucena.incident.repository.IncidentRepository;
+import br.com.lucena.incident.service.IncidentDeduplicator;
+import br.com.lucena.incident.service.IncidentEventLog;
+import br.com.lucena.incident.service.IncidentIdAllocator;
+import br.com.lucena.incident.service.IncidentIngestQueue;
+import br.com.lucena.incident.service.IncidentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IncidentIngestQueueTest {
+
+    @Mock
+    private IncidentRepository incidentRepository;
+
+    @Mock
+    private IncidentService incidentService;
+
+    @Mock
+    private IncidentEventRepository eventRepository;
+
+    @Mock
+    private IncidentIdAllocator idAllocator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path journalDir;
+
+    private final List<IncidentIngestQueue> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong ids = new AtomicLong();
+        when(idAllocator.nextId()).thenAnswer(invocation -> ids.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (IncidentIngestQueue queue : started) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void submit_ShouldAcknowledgeBeforeTheWriteAndInsertInBatches() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> inserted = new ArrayList<>();
+        doAnswer(invocation -> {
+            release.await();
+            List<Incident> incidents = invocation.getArgument(0);
+            incidents.forEach(incident -> inserted.add(incident.getIdIncident()));
+            return null;
+        }).when(incidentRepository).insertAll(anyList());
+        IncidentIngestQueue queue = start(100);
+
+        List<Long> accepted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            IncidentResponseDTO incident = queue.submit(request("Disk full " + i));
+            assertEquals(IncidentStatus.OPEN, incident.getStatus());
+            accepted.add(incident.getIdIncident());
+        }
+        assertEquals(List.of(), inserted);
+        release.countDown();
+        accepted.forEach(queue::awaitWritten);
+
+        assertEquals(List.of(1L, 2L, 3L), inserted);
+        assertEquals(0, queue.queued());
+        verify(incidentRepository, atMost(2)).insertAll(anyList());
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectWithoutJournaling() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(incidentRepository).insertAll(anyList());
+        IncidentIngestQueue queue = start(2);
+
+        queue.submit(request("Disk full 1"));
+        queue.submit(request("Disk full 2"));
+
+        assertThrows(IngestQueueFullException.class, () -> queue.submit(request("Disk full 3")));
+        release.countDown();
+        queue.awaitWritten(2L);
+        assertEquals(3L, queue.submit(request("Disk full 3")).getIdIncident());
+    }
+
+    @Test
+    void start_AfterStopWithDatabaseDown_ShouldWriteJournaledCreatesOnce() throws Exception {
+        doThrow(new IllegalStateException("database down")).when(incidentRepository).insertAll(anyList());
+        IncidentIngestQueue crashed = start(100);
+        crashed.submit(request("Disk full 1"));
+        crashed.submit(request("Disk full 2"));
+        crashed.shutdown();
+        started.remove(crashed);
+        // Escrita interrompida no meio de um registro, nunca confirmada
+        try (Stream<Path> segments = Files.list(journalDir)) {
+            Files.write(segments.findFirst().orElseThrow(), new byte[]{0, 0, 0, 42, 1}, StandardOpenOption.APPEND);
+        }
+
+        IncidentRepository recoveredRepository = mock(IncidentRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+        // O primeiro já tinha sido gravado quando o processo caiu
+        when(recoveredRepository.findDtosByIdIn(anyList())).thenReturn(List.of(
+                new IncidentResponseDTO(1L, "Disk full 1", "Database node ran out of disk", IncidentStatus.OPEN,
+                        now, now, null, 0L, 1L)));
+        List<Incident> inserted = new ArrayList<>();
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0)))
+                .when(recoveredRepository).insertAll(anyList());
+        IncidentIngestQueue recovered = start(recoveredRepository, 100);
+        recovered.awaitWritten(2L);
+
+        verify(recoveredRepository, times(1)).insertAll(anyList());
+        assertEquals(List.of(2L), inserted.stream().map(Incident::getIdIncident).toList());
+        assertEquals("Disk full 2", inserted.get(0).getName());
+        try (Stream<Path> segments = Files.list(journalDir)) {
+            assertEquals(0, segments.count());
+        }
+    }
+
+    @Test
+    void submit_AgainstDatabase_ShouldBeReadableOnceWritten() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:ingesttest",
+                        "--incident.ingest.async=true",
+                        "--incident.ingest.journal-dir=" + journalDir,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN")) {
+            IncidentIngestQueue queue = context.getBean(IncidentIngestQueue.class);
+            IncidentService service = context.getBean(IncidentService.class);
+
+            IncidentResponseDTO accepted = queue.submit(request("Disk full"));
+            IncidentResponseDTO synchronous = service.createIncident(request("CPU high"));
+            queue.awaitWritten(accepted.getIdIncident());
+
+            assertNotEquals(accepted.getIdIncident(), synchronous.getIdIncident());
+            IncidentResponseDTO written = service.getIncidentById(accepted.getIdIncident());
+            assertEquals("Disk full", written.getName());
+            assertEquals(0L, written.getVersion());
+            assertEquals(IncidentEventType.CREATED, service.getHistory(accepted.getIdIncident()).get(0).getType());
+            assertEquals(IncidentStatus.IN_PROGRESS,
+                    service.updateStatus(accepted.getIdIncident(), IncidentStatus.IN_PROGRESS).getStatus());
+        }
+    }
+
+    private IncidentIngestQueue start(int capacity) throws IOException {
+        return start(incidentRepository, capacity);
+    }
+
+    private IncidentIngestQueue start(IncidentRepository repository, int capacity) throws IOException {
+        IncidentIngestQueue queue = new IncidentIngestQueue(repository, incidentService,
+                new IncidentEventLog(eventRepository, 20), new IncidentDeduplicator(false, Duration.ofMinutes(10), 100),
+                idAllocator, new TransactionTemplate(transactionManager), true, capacity, 50, Duration.ofSeconds(5),
+                journalDir, DataSize.ofMegabytes(1));
+        queue.start();
+        started.add(queue);
+        return queue;
+    }
+
+    private static IncidentRequestDTO request(String name) {
+        return new IncidentRequestDTO(name, "Database node ran out of disk", null, null);
+    }
+}
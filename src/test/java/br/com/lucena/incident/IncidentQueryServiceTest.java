@@ -0,0 +1,147 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentPageDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.InvalidFilterException;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentFilter;
+import br.com.lucena.incident.service.IncidentQueryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Consulta composta contra o H2 real: filtros combinados, paginação keyset, reuso do plano
+// compilado por forma e cache curto das páginas
+class IncidentQueryServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private ConfigurableApplicationContext context;
+    private IncidentQueryService queryService;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:querytest",
+                        "--incident.query.cache-ttl=PT1M",
+                        "--incident.archive.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN");
+        queryService = context.getBean(IncidentQueryService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // Um incidente por hora, status em ciclo; os RESOLVED/CLOSED atualizados 30 minutos depois
+        IncidentStatus[] cycle = IncidentStatus.values();
+        for (int i = 1; i <= 12; i++) {
+            IncidentStatus status = cycle[i % cycle.length];
+            LocalDateTime createdAt = BASE.plusHours(i);
+            boolean finished = status == IncidentStatus.RESOLVED || status == IncidentStatus.CLOSED;
+            insert(i, status, createdAt, finished ? createdAt.plusMinutes(30) : createdAt,
+                    status == IncidentStatus.CLOSED ? createdAt.plusMinutes(30) : null);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void query_WithStatusSetAndCreatedRange_ShouldPageThroughMatchesInOrder() {
+        IncidentFilter filter = new IncidentFilter(EnumSet.of(IncidentStatus.IN_PROGRESS, IncidentStatus.RESOLVED),
+                BASE.plusHours(2), BASE.plusHours(11), null, null, null, null);
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            IncidentPageDTO page = queryService.query(filter, cursor, 2);
+            page.getContent().forEach(incident -> ids.add(incident.getIdIncident()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(2L, 5L, 6L, 9L, 10L), ids);
+    }
+
+    @Test
+    void query_WithUpdatedAndClosedRanges_ShouldCombineAllCriteria() {
+        IncidentFilter updatedSince = new IncidentFilter(null, null, null, BASE.plusHours(8).plusMinutes(1), null,
+                null, null);
+        IncidentFilter closed = new IncidentFilter(Set.of(IncidentStatus.CLOSED), null, null, null, null,
+                BASE.plusHours(3), BASE.plusHours(11));
+
+        assertEquals(List.of(9L, 10L, 11L, 12L), ids(queryService.query(updatedSince, null, 50)));
+        assertEquals(List.of(3L, 7L), ids(queryService.query(closed, null, 50)));
+        assertEquals(12, queryService.query(new IncidentFilter(null, null, null, null, null, null, null), null, 50)
+                .getContent().size());
+    }
+
+    @Test
+    void query_WithSameShapeAndOtherValues_ShouldReuseCompiledPlan() {
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        queryService.query(new IncidentFilter(Set.of(IncidentStatus.OPEN), BASE, null, null, null, null, null), null, 5);
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+
+        queryService.query(new IncidentFilter(Set.of(IncidentStatus.CLOSED), BASE.plusHours(1), null, null, null,
+                null, null), null, 5);
+
+        assertEquals(misses, statistics.getQueryPlanCacheMissCount());
+        assertTrue(statistics.getQueryPlanCacheHitCount() > hits);
+    }
+
+    @Test
+    void query_RepeatedWithinTtl_ShouldServeCachedPage() {
+        IncidentFilter filter = new IncidentFilter(Set.of(IncidentStatus.OPEN), null, null, null, null, null, null);
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        long beforeMiss = statistics.getTransactionCount();
+        IncidentPageDTO first = queryService.query(filter, null, 50);
+        insert(13, IncidentStatus.OPEN, BASE.plusHours(13), BASE.plusHours(13), null);
+        long transactions = statistics.getTransactionCount();
+
+        IncidentPageDTO second = queryService.query(filter, "", 50);
+
+        assertSame(first, second);
+        // Só o miss abre transação
+        assertEquals(beforeMiss + 1, transactions);
+        assertEquals(transactions, statistics.getTransactionCount());
+        assertEquals(4, queryService.query(filter, null, 49).getContent().size());
+    }
+
+    @Test
+    void query_WithEmptyRange_ShouldThrowException() {
+        IncidentFilter filter = new IncidentFilter(null, BASE.plusHours(2), BASE.plusHours(2), null, null, null, null);
+
+        InvalidFilterException exception = assertThrows(InvalidFilterException.class,
+                () -> queryService.query(filter, null, 50));
+
+        assertEquals("createdFrom must be before createdTo", exception.getMessage());
+    }
+
+    private void insert(long id, IncidentStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                        LocalDateTime closedAt) {
+        jdbcTemplate.update("INSERT INTO incidents (id_incident, name, description, status, created_at, updated_at, " +
+                        "closed_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+                id, "Incident " + id, "Seeded incident number " + id, status.name(), createdAt, updatedAt, closedAt);
+    }
+
+    private static List<Long> ids(IncidentPageDTO page) {
+        return page.getContent().stream().map(IncidentResponseDTO::getIdIncident).toList();
+    }
+}
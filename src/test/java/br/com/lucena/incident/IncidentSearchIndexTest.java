@@ -0,0 +1,98 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.service.IncidentSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncidentSearchIndexTest {
+
+    private IncidentSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IncidentSearchIndex();
+    }
+
+    @Test
+    void search_ShouldMatchAllTermsAndRankNameHitsFirst() {
+        index.index(1L, 0L, "Disk full", "Database node ran out of disk");
+        index.index(2L, 0L, "Database disk full", "Primary node stopped accepting writes");
+        index.index(3L, 0L, "Database slow", "Queries above one second");
+
+        IncidentSearchIndex.Hits hits = index.search("database disk", 0, 10);
+
+        assertEquals(2, hits.total());
+        assertEquals(List.of(2L, 1L), hits.ids());
+    }
+
+    @Test
+    void search_ShouldIgnoreCaseAndAccents() {
+        index.index(1L, 0L, "Falha de conexão", "Timeout na CONEXÃO com o banco");
+
+        assertEquals(List.of(1L), index.search("Conexao BANCO", 0, 10).ids());
+        assertEquals(0, index.search("conexao cache", 0, 10).total());
+        assertEquals(0, index.search("  -- ", 0, 10).total());
+    }
+
+    @Test
+    void search_ShouldPaginateByRankWithNewestFirstOnTies() {
+        LongStream.rangeClosed(1, 5).forEach(id -> index.index(id, 0L, "Incident " + id, "Same description"));
+
+        IncidentSearchIndex.Hits firstPage = index.search("incident", 0, 2);
+        IncidentSearchIndex.Hits lastPage = index.search("incident", 4, 2);
+
+        assertEquals(5, firstPage.total());
+        assertEquals(List.of(5L, 4L), firstPage.ids());
+        assertEquals(List.of(1L), lastPage.ids());
+    }
+
+    @Test
+    void index_ShouldReplaceTermsOfPreviousVersionAndIgnoreStaleOnes() {
+        index.index(1L, 0L, "Disk full", "Node one");
+        index.index(1L, 1L, "Memory leak", "Node one");
+        index.index(1L, 0L, "Disk full", "Node one");
+
+        assertEquals(0, index.search("disk", 0, 10).total());
+        assertEquals(List.of(1L), index.search("memory", 0, 10).ids());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_ShouldDropDocumentFromEveryTerm() {
+        index.index(1L, 0L, "Disk full", "Node one");
+        index.index(2L, 0L, "Disk slow", "Node two");
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.search("disk node", 0, 10).ids());
+        assertEquals(0, index.search("full", 0, 10).total());
+    }
+
+    @Test
+    void concurrentWrites_ShouldLeaveEveryLiveDocumentSearchable() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (long id = 1; id <= 2_000; id++) {
+            long incidentId = id;
+            executor.submit(() -> {
+                index.index(incidentId, 0L, "Incident " + incidentId, "Shared words");
+                if (incidentId % 2 == 0) {
+                    index.remove(incidentId);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1_000, index.search("shared words", 0, 10).total());
+        assertEquals(List.of(1_999L), index.search("1999", 0, 10).ids());
+        assertEquals(0, index.search("2000", 0, 10).total());
+    }
+}
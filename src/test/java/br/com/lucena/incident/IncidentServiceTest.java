@@ -1,30 +1,58 @@
 package br.com.lucena.incident;
 
+import br.com.lucena.incident.dto.IncidentPageDTO;
 import br.com.lucena.incident.dto.IncidentRequestDTO;
 import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.dto.IncidentSearchResultDTO;
+import br.com.lucena.incident.dto.IncidentStatsDTO;
+import br.com.lucena.incident.dto.StatsBucketDTO;
+import br.com.lucena.incident.exception.IncidentConflictException;
+import br.com.lucena.incident.exception.InvalidStatusTransitionException;
+import br.com.lucena.incident.exception.InvalidCursorException;
 import br.com.lucena.incident.exception.ResourceNotFoundException;
 import br.com.lucena.incident.model.Incident;
+import br.com.lucena.incident.model.IncidentEventType;
 import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.model.IncidentEvent;
+import br.com.lucena.incident.repository.IncidentEventRepository;
 import br.com.lucena.incident.repository.IncidentRepository;
+import br.com.lucena.incident.repository.StatusCount;
+import br.com.lucena.incident.service.IncidentCache;
+import br.com.lucena.incident.service.IncidentChangeTracker;
+import br.com.lucena.incident.service.IncidentCursor;
+import br.com.lucena.incident.service.IncidentDeduplicator;
+import br.com.lucena.incident.service.IncidentEventBroadcaster;
+import br.com.lucena.incident.service.IncidentEventLog;
+import br.com.lucena.incident.service.IncidentSearchIndex;
 import br.com.lucena.incident.service.IncidentService;
+import br.com.lucena.incident.service.IncidentStatsRollup;
+import br.com.lucena.incident.service.LatestIncidentsBuffer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,15 +61,34 @@ class IncidentServiceTest {
     @Mock
     private IncidentRepository incidentRepository;
 
-    @InjectMocks
+    @Mock
+    private IncidentEventBroadcaster eventBroadcaster;
+
+    @Mock
+    private IncidentEventRepository eventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private IncidentService incidentService;
+    private IncidentSearchIndex searchIndex;
+    private IncidentStatsRollup statsRollup;
+    private IncidentChangeTracker changeTracker;
 
     private Incident incident;
+    private IncidentResponseDTO incidentDTO;
     private IncidentRequestDTO requestDTO;
     private LocalDateTime now;
 
     @BeforeEach
     void setUp() {
+        searchIndex = new IncidentSearchIndex();
+        statsRollup = new IncidentStatsRollup(168, 90);
+        changeTracker = new IncidentChangeTracker();
+        incidentService = new IncidentService(incidentRepository, new IncidentCache(100, Duration.ofMinutes(1)),
+                new LatestIncidentsBuffer(20), searchIndex, eventBroadcaster, statsRollup,
+                new IncidentEventLog(eventRepository, 20), new IncidentDeduplicator(true, Duration.ofMinutes(10), 1000),
+                changeTracker, new TransactionTemplate(transactionManager));
         now = LocalDateTime.now();
         
         incident = new Incident();
@@ -51,6 +98,9 @@ class IncidentServiceTest {
         incident.setStatus(IncidentStatus.OPEN);
         incident.setCreatedAt(now);
         incident.setUpdatedAt(now);
+
+        incidentDTO = new IncidentResponseDTO(1L, "Test Incident", "Test Description", IncidentStatus.OPEN,
+                now, now, null, 0L, 1L);
         
         requestDTO = new IncidentRequestDTO();
         requestDTO.setName("Test Incident");
@@ -70,11 +120,47 @@ class IncidentServiceTest {
         assertEquals(incident.getStatus(), result.getStatus());
         assertEquals(incident.getCreatedAt(), result.getCreatedAt());
         verify(incidentRepository, times(1)).save(any(Incident.class));
+        verify(eventBroadcaster, times(1)).publish(IncidentEventType.CREATED, result);
+    }
+
+    @Test
+    void createIncident_WithDuplicateInWindow_ShouldCoalesceWithoutInsert() {
+        when(incidentRepository.save(any(Incident.class))).thenReturn(incident);
+
+        incidentService.createIncident(requestDTO);
+        IncidentResponseDTO second = incidentService.createIncident(requestDTO);
+        IncidentResponseDTO third = incidentService.createIncident(requestDTO);
+
+        assertEquals(1L, second.getIdIncident());
+        assertEquals(3L, third.getOccurrences());
+        verify(incidentRepository, times(1)).save(any(Incident.class));
+        verify(incidentRepository, never()).findDtoById(any());
+        verify(eventRepository, times(1)).save(any());
+    }
+
+    @Test
+    void flushOccurrences_ShouldAddPendingCountsInOneTransactionAndPublish() {
+        IncidentResponseDTO flushed = new IncidentResponseDTO(1L, "Test Incident", "Test Description",
+                IncidentStatus.OPEN, now, now, null, 0L, 3L);
+        when(incidentRepository.save(any(Incident.class))).thenReturn(incident);
+        when(incidentRepository.findDtosByIdIn(any())).thenReturn(List.of(flushed));
+        when(incidentRepository.addOccurrences(1L, 2L)).thenReturn(1);
+        incidentService.createIncident(requestDTO);
+        incidentService.createIncident(requestDTO);
+        incidentService.createIncident(requestDTO);
+
+        incidentService.flushOccurrences();
+        incidentService.flushOccurrences();
+
+        verify(incidentRepository, times(1)).addOccurrences(1L, 2L);
+        verify(eventBroadcaster, times(1)).publish(IncidentEventType.COALESCED, flushed);
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3L, incidentService.getIncidentById(1L).getOccurrences());
     }
 
     @Test
     void getIncidentById_WithValidId_ShouldReturnIncident() {
-        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(incidentDTO));
 
         IncidentResponseDTO result = incidentService.getIncidentById(1L);
 
@@ -82,59 +168,161 @@ class IncidentServiceTest {
         assertEquals(incident.getIdIncident(), result.getIdIncident());
         assertEquals(incident.getName(), result.getName());
         assertEquals(incident.getDescription(), result.getDescription());
-        verify(incidentRepository, times(1)).findById(1L);
+        verify(incidentRepository, times(1)).findDtoById(1L);
     }
 
     @Test
     void getIncidentById_WithInvalidId_ShouldThrowException() {
-        when(incidentRepository.findById(999L)).thenReturn(Optional.empty());
+        when(incidentRepository.findDtoById(999L)).thenReturn(Optional.empty());
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             incidentService.getIncidentById(999L);
         });
         
         assertEquals("Incident not found with id: 999", exception.getMessage());
-        verify(incidentRepository, times(1)).findById(999L);
+        verify(incidentRepository, times(1)).findDtoById(999L);
     }
 
     @Test
-    void getAllIncidents_ShouldReturnAllIncidents() {
-        List<Incident> incidents = Arrays.asList(incident);
-        when(incidentRepository.findAll()).thenReturn(incidents);
+    void getIncidentById_WhenArchived_ShouldFallBackToArchive() {
+        IncidentResponseDTO archived = new IncidentResponseDTO(1L, "Test Incident", "Test Description",
+                IncidentStatus.CLOSED, now.minusDays(40), now.minusDays(35), now.minusDays(35), 3L, 1L);
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.empty());
+        when(incidentRepository.findArchivedDtoById(1L)).thenReturn(Optional.of(archived));
 
-        List<IncidentResponseDTO> results = incidentService.getAllIncidents();
+        IncidentResponseDTO result = incidentService.getIncidentById(1L);
+        incidentService.getIncidentById(1L);
 
-        assertNotNull(results);
-        assertEquals(1, results.size());
-        assertEquals(incident.getIdIncident(), results.get(0).getIdIncident());
-        assertEquals(incident.getName(), results.get(0).getName());
-        verify(incidentRepository, times(1)).findAll();
+        assertEquals(IncidentStatus.CLOSED, result.getStatus());
+        verify(incidentRepository, times(1)).findArchivedDtoById(1L);
     }
 
     @Test
-    void getAllIncidents_WithNoIncidents_ShouldReturnEmptyList() {
-        when(incidentRepository.findAll()).thenReturn(Collections.emptyList());
+    void getIncidentById_CalledTwice_ShouldHitCache() {
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(incidentDTO));
 
-        List<IncidentResponseDTO> results = incidentService.getAllIncidents();
+        incidentService.getIncidentById(1L);
+        IncidentResponseDTO result = incidentService.getIncidentById(1L);
 
-        assertNotNull(results);
-        assertTrue(results.isEmpty());
-        verify(incidentRepository, times(1)).findAll();
+        assertEquals(incident.getName(), result.getName());
+        assertEquals(1, incidentService.getCacheStats().getHitCount());
+        assertEquals(1, incidentService.getCacheStats().getMissCount());
+        verify(incidentRepository, times(1)).findDtoById(1L);
+    }
+
+    @Test
+    void updateIncident_ShouldRefreshCachedIncident() {
+        Incident updatedIncident = new Incident();
+        updatedIncident.setIdIncident(1L);
+        updatedIncident.setName("Updated Name");
+        updatedIncident.setDescription("Updated Description");
+        updatedIncident.setStatus(IncidentStatus.OPEN);
+
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(incidentDTO));
+        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
+        when(incidentRepository.save(any(Incident.class))).thenReturn(updatedIncident);
+
+        incidentService.getIncidentById(1L);
+        incidentService.updateIncident(1L, requestDTO);
+        IncidentResponseDTO result = incidentService.getIncidentById(1L);
+
+        assertEquals("Updated Name", result.getName());
+    }
+
+    @Test
+    void deleteIncident_ShouldEvictCachedIncident() {
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(incidentDTO)).thenReturn(Optional.empty());
+        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
+
+        incidentService.getIncidentById(1L);
+        incidentService.deleteIncident(1L);
+
+        assertThrows(ResourceNotFoundException.class, () -> incidentService.getIncidentById(1L));
+        verify(incidentRepository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    void getAllIncidents_WithoutCursor_ShouldReturnFirstPage() {
+        List<IncidentResponseDTO> incidents = Arrays.asList(incidentDTO);
+        when(incidentRepository.findFirstPage(PageRequest.of(0, 21))).thenReturn(incidents);
+
+        IncidentPageDTO result = incidentService.getAllIncidents(null, 20);
+
+        assertNotNull(result);
+        assertEquals(1, result.getSize());
+        assertEquals(incident.getIdIncident(), result.getContent().get(0).getIdIncident());
+        assertEquals(incident.getName(), result.getContent().get(0).getName());
+        assertNull(result.getNextCursor());
+        verify(incidentRepository, times(1)).findFirstPage(PageRequest.of(0, 21));
+    }
+
+    @Test
+    void getAllIncidents_WithMoreRows_ShouldReturnCursorForNextPage() {
+        IncidentResponseDTO second = new IncidentResponseDTO();
+        second.setIdIncident(2L);
+        second.setCreatedAt(now.plusSeconds(1));
+        when(incidentRepository.findFirstPage(PageRequest.of(0, 2))).thenReturn(Arrays.asList(incidentDTO, second));
+        when(incidentRepository.findPageAfter(now, 1L, PageRequest.of(0, 2))).thenReturn(List.of(second));
+
+        IncidentPageDTO first = incidentService.getAllIncidents(null, 1);
+        IncidentPageDTO next = incidentService.getAllIncidents(first.getNextCursor(), 1);
+
+        assertEquals(1, first.getSize());
+        assertNotNull(first.getNextCursor());
+        assertEquals(2L, next.getContent().get(0).getIdIncident());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getAllIncidents_WithNoIncidents_ShouldReturnEmptyPage() {
+        when(incidentRepository.findFirstPage(any(PageRequest.class))).thenReturn(Collections.emptyList());
+
+        IncidentPageDTO result = incidentService.getAllIncidents(null, IncidentService.DEFAULT_PAGE_SIZE);
+
+        assertNotNull(result);
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAllIncidents_WithMalformedCursor_ShouldThrowException() {
+        assertThrows(InvalidCursorException.class, () -> incidentService.getAllIncidents("not-a-cursor", 20));
+        verify(incidentRepository, never()).findPageAfter(any(), any(), any());
     }
 
     @Test
     void getLatest20Incidents_ShouldReturnLatestIncidents() {
-        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
-        PageImpl<Incident> page = new PageImpl<>(Arrays.asList(incident));
-        
-        when(incidentRepository.findAll(pageRequest)).thenReturn(page);
+        PageRequest pageRequest = PageRequest.of(0, 40);
+        when(incidentRepository.findLatest(pageRequest)).thenReturn(Arrays.asList(incidentDTO));
 
+        incidentService.seedLatestIncidents();
         List<IncidentResponseDTO> results = incidentService.getLatest20Incidents();
 
         assertNotNull(results);
         assertEquals(1, results.size());
         assertEquals(incident.getIdIncident(), results.get(0).getIdIncident());
-        verify(incidentRepository, times(1)).findAll(pageRequest);
+        verify(incidentRepository, times(1)).findLatest(pageRequest);
+    }
+
+    @Test
+    void getLatest20Incidents_AfterCreate_ShouldNotQueryDatabaseAgain() {
+        Incident created = new Incident();
+        created.setIdIncident(2L);
+        created.setName("New Incident");
+        created.setDescription("New Description");
+        created.setStatus(IncidentStatus.OPEN);
+        created.setCreatedAt(now.plusMinutes(1));
+        when(incidentRepository.findLatest(any(PageRequest.class))).thenReturn(Arrays.asList(incidentDTO));
+        when(incidentRepository.save(any(Incident.class))).thenReturn(created);
+
+        incidentService.seedLatestIncidents();
+        incidentService.createIncident(requestDTO);
+        List<IncidentResponseDTO> results = incidentService.getLatest20Incidents();
+
+        assertEquals(2, results.size());
+        assertEquals(2L, results.get(0).getIdIncident());
+        assertEquals(1L, results.get(1).getIdIncident());
+        verify(incidentRepository, times(1)).findLatest(any(PageRequest.class));
     }
 
     @Test
@@ -186,8 +374,39 @@ class IncidentServiceTest {
         
         verify(incidentRepository, times(1)).findById(1L);
         verify(incidentRepository, times(1)).delete(incident);
+        verify(eventBroadcaster, times(1)).deleted(1L);
     }
     
+    @Test
+    void search_ShouldRankIndexedIncidentsAndLoadMissesInOneQuery() {
+        when(incidentRepository.save(any(Incident.class))).thenReturn(incident);
+        incidentService.createIncident(requestDTO);
+
+        IncidentResponseDTO other = new IncidentResponseDTO(2L, "Database down", "Test database unreachable",
+                IncidentStatus.OPEN, now, now, null, 0L, 1L);
+        searchIndex.index(other);
+        when(incidentRepository.findDtosByIdIn(List.of(2L))).thenReturn(List.of(other));
+
+        IncidentSearchResultDTO results = incidentService.search("test", 0, 20);
+
+        assertEquals(2, results.getTotal());
+        // "test" aparece no nome do incidente 1 e só na descrição do 2
+        assertEquals(List.of(1L, 2L), results.getContent().stream().map(IncidentResponseDTO::getIdIncident).toList());
+        // O incidente 1 já estava no cache desde a criação
+        verify(incidentRepository, times(1)).findDtosByIdIn(anyCollection());
+    }
+
+    @Test
+    void deleteIncident_ShouldRemoveItFromSearch() {
+        when(incidentRepository.save(any(Incident.class))).thenReturn(incident);
+        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
+        incidentService.createIncident(requestDTO);
+
+        incidentService.deleteIncident(1L);
+
+        assertEquals(0, incidentService.search("test incident", 0, 20).getTotal());
+    }
+
     @Test
     void deleteIncident_WithInvalidId_ShouldThrowException() {
         when(incidentRepository.findById(999L)).thenReturn(Optional.empty());
@@ -202,64 +421,257 @@ class IncidentServiceTest {
     }
     
     @Test
-    void updateStatus_WithValidId_ShouldUpdateStatus() {
-        Incident statusUpdatedIncident = new Incident();
-        statusUpdatedIncident.setIdIncident(1L);
-        statusUpdatedIncident.setName("Test Incident");
-        statusUpdatedIncident.setDescription("Test Description");
-        statusUpdatedIncident.setStatus(IncidentStatus.RESOLVED);
-        statusUpdatedIncident.setCreatedAt(now);
-        statusUpdatedIncident.setUpdatedAt(now.plusHours(1));
-        statusUpdatedIncident.setClosedAt(now.plusHours(1));
-        
-        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
-        when(incidentRepository.save(any(Incident.class))).thenReturn(statusUpdatedIncident);
+    void updateStatus_WithValidId_ShouldUpdateStatusWithSingleConditionalUpdate() {
+        IncidentResponseDTO statusUpdated = new IncidentResponseDTO(1L, "Test Incident", "Test Description",
+                IncidentStatus.CLOSED, now, now.plusHours(1), now.plusHours(1), 1L, 1L);
+
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), eq(EnumSet.of(IncidentStatus.RESOLVED)),
+                eq(IncidentStatus.CLOSED), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(statusUpdated));
 
-        IncidentResponseDTO result = incidentService.updateStatus(1L, IncidentStatus.RESOLVED);
+        IncidentResponseDTO result = incidentService.updateStatus(1L, IncidentStatus.CLOSED);
 
         assertNotNull(result);
-        assertEquals(statusUpdatedIncident.getIdIncident(), result.getIdIncident());
-        assertEquals(statusUpdatedIncident.getStatus(), result.getStatus());
+        assertEquals(statusUpdated.getIdIncident(), result.getIdIncident());
+        assertEquals(IncidentStatus.CLOSED, result.getStatus());
         assertNotNull(result.getClosedAt());
-        verify(incidentRepository, times(1)).findById(1L);
-        verify(incidentRepository, times(1)).save(any(Incident.class));
+        verify(eventBroadcaster, times(1)).publish(IncidentEventType.STATUS_CHANGED, result);
+        verify(incidentRepository, never()).findById(any());
+        verify(incidentRepository, never()).save(any(Incident.class));
+    }
+
+    @Test
+    void updateStatus_ShouldAppendStatusChangeToHistoryInTheSameTransaction() {
+        IncidentResponseDTO statusUpdated = new IncidentResponseDTO(1L, "Test Incident", "Test Description",
+                IncidentStatus.IN_PROGRESS, now, now.plusMinutes(5), null, 1L, 1L);
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), anyCollection(), eq(IncidentStatus.IN_PROGRESS),
+                isNull(), any(LocalDateTime.class))).thenReturn(1);
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(statusUpdated));
+
+        incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS);
+
+        ArgumentCaptor<IncidentEvent> event = ArgumentCaptor.forClass(IncidentEvent.class);
+        verify(eventRepository).save(event.capture());
+        assertEquals(IncidentEventType.STATUS_CHANGED, event.getValue().getType());
+        assertEquals(1L, event.getValue().getVersion());
+        assertEquals(IncidentStatus.IN_PROGRESS, event.getValue().getStatus());
+        assertEquals(now.plusMinutes(5), event.getValue().getOccurredAt());
+        // Delta: nome e descrição não mudaram
+        assertNull(event.getValue().getName());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void updateStatus_WhenRejected_ShouldNotAppendHistory() {
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), anyCollection(), eq(IncidentStatus.IN_PROGRESS),
+                isNull(), any(LocalDateTime.class))).thenReturn(0);
+        when(incidentRepository.findStatusById(1L)).thenReturn(Optional.of(IncidentStatus.CLOSED));
+
+        assertThrows(InvalidStatusTransitionException.class,
+                () -> incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS));
+        verify(eventRepository, never()).save(any());
+    }
+
+    @Test
+    void changeTracker_ShouldAdvanceOnCommittedWritesOfTheStatusesTouched() {
+        IncidentResponseDTO inProgress = new IncidentResponseDTO(1L, "Test Incident", "Test Description",
+                IncidentStatus.IN_PROGRESS, now, now.plusMinutes(5), null, 1L, 1L);
+        when(incidentRepository.save(any(Incident.class))).thenReturn(incident);
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), anyCollection(), eq(IncidentStatus.IN_PROGRESS),
+                isNull(), any(LocalDateTime.class))).thenReturn(1, 0);
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(inProgress));
+        when(incidentRepository.findStatusById(1L)).thenReturn(Optional.of(IncidentStatus.CLOSED));
+        String etag = changeTracker.etag();
+        String closedEtag = changeTracker.etag(IncidentStatus.CLOSED);
+
+        incidentService.createIncident(requestDTO);
+        long openAfterCreate = changeTracker.version(IncidentStatus.OPEN);
+        incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS);
+        assertThrows(InvalidStatusTransitionException.class,
+                () -> incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS));
+
+        assertEquals(2, changeTracker.version());
+        assertNotEquals(etag, changeTracker.etag());
+        // A mudança de status avança o destino e os status de onde ela pode ter saído
+        assertTrue(changeTracker.version(IncidentStatus.OPEN) > openAfterCreate);
+        assertEquals(1, changeTracker.version(IncidentStatus.IN_PROGRESS));
+        assertEquals(closedEtag, changeTracker.etag(IncidentStatus.CLOSED));
+    }
+
+    @Test
+    void stats_ShouldFollowCreateCloseAndDeleteWithoutQuerying() {
+        IncidentResponseDTO closed = new IncidentResponseDTO(1L, "Test Incident", "Test Description",
+                IncidentStatus.CLOSED, now.minusMinutes(90), now, now, 1L, 1L);
+        when(incidentRepository.save(any(Incident.class))).thenReturn(incident);
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), anyCollection(), eq(IncidentStatus.CLOSED),
+                any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(closed));
+
+        incidentService.createIncident(requestDTO);
+        assertEquals(1L, incidentService.getStats(24, 30).getCurrentByStatus().get(IncidentStatus.OPEN));
+
+        incidentService.updateStatus(1L, IncidentStatus.CLOSED);
+        IncidentStatsDTO stats = incidentService.getStats(24, 30);
+
+        assertEquals(0L, stats.getCurrentByStatus().get(IncidentStatus.OPEN));
+        assertEquals(1L, stats.getCurrentByStatus().get(IncidentStatus.CLOSED));
+        StatsBucketDTO today = stats.getDaily().stream()
+                .filter(bucket -> bucket.getStart().equals(now.truncatedTo(ChronoUnit.DAYS)))
+                .findFirst().orElseThrow();
+        assertEquals(1, today.getClosed());
+        assertEquals(5400.0, today.getMeanTimeToCloseSeconds());
+        assertEquals(5400L, today.getP95TimeToCloseSeconds());
+        verify(incidentRepository, never()).countGroupedByStatus();
+    }
+
+    @Test
+    void updateStatus_ToOpenStatus_ShouldClearClosedAt() {
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), anyCollection(), eq(IncidentStatus.IN_PROGRESS),
+                isNull(), any(LocalDateTime.class))).thenReturn(1);
+        when(incidentRepository.findDtoById(1L)).thenReturn(Optional.of(incidentDTO));
+
+        incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS);
+
+        verify(incidentRepository, times(1)).updateStatusIfCurrentIn(eq(1L), anyCollection(),
+                eq(IncidentStatus.IN_PROGRESS), isNull(), any(LocalDateTime.class));
     }
     
     @Test
     void updateStatus_WithInvalidId_ShouldThrowException() {
-        when(incidentRepository.findById(999L)).thenReturn(Optional.empty());
+        when(incidentRepository.updateStatusIfCurrentIn(eq(999L), anyCollection(), any(), any(), any())).thenReturn(0);
+        when(incidentRepository.findStatusById(999L)).thenReturn(Optional.empty());
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             incidentService.updateStatus(999L, IncidentStatus.RESOLVED);
         });
         
         assertEquals("Incident not found with id: 999", exception.getMessage());
-        verify(incidentRepository, times(1)).findById(999L);
-        verify(incidentRepository, never()).save(any(Incident.class));
+        verify(incidentRepository, never()).findDtoById(999L);
+    }
+
+    @Test
+    void updateStatus_WithUnexpectedCurrentStatus_ShouldThrowConflict() {
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), eq(EnumSet.of(IncidentStatus.OPEN)), any(), any(), any()))
+                .thenReturn(0);
+        // Outra escrita levou o incidente para RESOLVED, de onde IN_PROGRESS ainda seria válido
+        when(incidentRepository.findStatusById(1L)).thenReturn(Optional.of(IncidentStatus.RESOLVED));
+
+        assertThrows(IncidentConflictException.class,
+                () -> incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS, IncidentStatus.OPEN));
+        verify(incidentRepository, never()).findDtoById(1L);
+    }
+
+    @Test
+    void updateStatus_FromFinalStatus_ShouldRejectTransition() {
+        when(incidentRepository.updateStatusIfCurrentIn(eq(1L), eq(EnumSet.of(IncidentStatus.OPEN, IncidentStatus.RESOLVED)),
+                eq(IncidentStatus.IN_PROGRESS), any(), any())).thenReturn(0);
+        when(incidentRepository.findStatusById(1L)).thenReturn(Optional.of(IncidentStatus.CLOSED));
+
+        InvalidStatusTransitionException exception = assertThrows(InvalidStatusTransitionException.class,
+                () -> incidentService.updateStatus(1L, IncidentStatus.IN_PROGRESS));
+
+        assertEquals("Incident 1 cannot move from CLOSED to IN_PROGRESS; CLOSED is final", exception.getMessage());
+        verify(incidentRepository, never()).findDtoById(1L);
+    }
+
+    @Test
+    void updateStatus_ToOpenOrWithDisallowedExpectedStatus_ShouldRejectWithoutQuerying() {
+        assertThrows(InvalidStatusTransitionException.class,
+                () -> incidentService.updateStatus(1L, IncidentStatus.OPEN));
+        assertThrows(InvalidStatusTransitionException.class,
+                () -> incidentService.updateStatus(1L, IncidentStatus.CLOSED, IncidentStatus.OPEN));
+
+        verifyNoInteractions(incidentRepository);
+    }
+
+    @Test
+    void incidentStatus_ShouldFollowLifecycle() {
+        assertTrue(IncidentStatus.OPEN.canTransitionTo(IncidentStatus.IN_PROGRESS));
+        assertTrue(IncidentStatus.IN_PROGRESS.canTransitionTo(IncidentStatus.RESOLVED));
+        assertTrue(IncidentStatus.RESOLVED.canTransitionTo(IncidentStatus.CLOSED));
+        assertTrue(IncidentStatus.RESOLVED.canTransitionTo(IncidentStatus.IN_PROGRESS));
+        assertFalse(IncidentStatus.OPEN.canTransitionTo(IncidentStatus.CLOSED));
+        assertFalse(IncidentStatus.CLOSED.canTransitionTo(IncidentStatus.OPEN));
+        assertTrue(IncidentStatus.OPEN.predecessors().isEmpty());
+        assertTrue(IncidentStatus.CLOSED.successors().isEmpty());
+    }
+
+    @Test
+    void updateIncident_WithConcurrentModification_ShouldRetryWithFreshState() {
+        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
+        when(incidentRepository.save(any(Incident.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Incident.class, 1L))
+                .thenReturn(incident);
+
+        IncidentResponseDTO result = incidentService.updateIncident(1L, requestDTO);
+
+        assertNotNull(result);
+        verify(incidentRepository, times(2)).findById(1L);
+        verify(incidentRepository, times(2)).save(any(Incident.class));
+    }
+
+    @Test
+    void updateIncident_WithPersistentConflict_ShouldThrowConflict() {
+        when(incidentRepository.findById(1L)).thenReturn(Optional.of(incident));
+        when(incidentRepository.save(any(Incident.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Incident.class, 1L));
+
+        assertThrows(IncidentConflictException.class, () -> incidentService.updateIncident(1L, requestDTO));
+        verify(incidentRepository, times(3)).save(any(Incident.class));
     }
     
     @Test
     void findByStatus_ShouldReturnIncidentsWithMatchingStatus() {
-        List<Incident> incidents = Arrays.asList(incident);
-        when(incidentRepository.findByStatus(IncidentStatus.OPEN)).thenReturn(incidents);
+        List<IncidentResponseDTO> incidents = Arrays.asList(incidentDTO);
+        PageRequest limit = PageRequest.of(0, IncidentService.DEFAULT_PAGE_SIZE + 1);
+        when(incidentRepository.findFirstPageByStatus(IncidentStatus.OPEN, limit)).thenReturn(incidents);
 
-        List<IncidentResponseDTO> results = incidentService.findByStatus(IncidentStatus.OPEN);
+        IncidentPageDTO results = incidentService.findByStatus(IncidentStatus.OPEN, null, IncidentService.DEFAULT_PAGE_SIZE);
 
         assertNotNull(results);
-        assertEquals(1, results.size());
-        assertEquals(incident.getIdIncident(), results.get(0).getIdIncident());
-        assertEquals(IncidentStatus.OPEN, results.get(0).getStatus());
-        verify(incidentRepository, times(1)).findByStatus(IncidentStatus.OPEN);
+        assertEquals(1, results.getSize());
+        assertEquals(incident.getIdIncident(), results.getContent().get(0).getIdIncident());
+        assertEquals(IncidentStatus.OPEN, results.getContent().get(0).getStatus());
+        assertNull(results.getNextCursor());
+        verify(incidentRepository, times(1)).findFirstPageByStatus(IncidentStatus.OPEN, limit);
     }
     
     @Test
     void findByStatus_WithNoMatches_ShouldReturnEmptyList() {
-        when(incidentRepository.findByStatus(IncidentStatus.RESOLVED)).thenReturn(Collections.emptyList());
+        when(incidentRepository.findFirstPageByStatus(eq(IncidentStatus.RESOLVED), any(PageRequest.class)))
+                .thenReturn(Collections.emptyList());
 
-        List<IncidentResponseDTO> results = incidentService.findByStatus(IncidentStatus.RESOLVED);
+        IncidentPageDTO results = incidentService.findByStatus(IncidentStatus.RESOLVED, null, 20);
 
         assertNotNull(results);
-        assertTrue(results.isEmpty());
-        verify(incidentRepository, times(1)).findByStatus(IncidentStatus.RESOLVED);
+        assertTrue(results.getContent().isEmpty());
+        verify(incidentRepository, times(1)).findFirstPageByStatus(eq(IncidentStatus.RESOLVED), any(PageRequest.class));
+    }
+
+    @Test
+    void findByStatus_WithCursor_ShouldContinueAfterCursor() {
+        String cursor = new IncidentCursor(now, 1L).encode();
+        when(incidentRepository.findPageByStatusAfter(eq(IncidentStatus.OPEN), eq(now), eq(1L), any(PageRequest.class)))
+                .thenReturn(Collections.emptyList());
+
+        IncidentPageDTO results = incidentService.findByStatus(IncidentStatus.OPEN, cursor, 20);
+
+        assertTrue(results.getContent().isEmpty());
+        verify(incidentRepository, never()).findFirstPageByStatus(any(), any());
+    }
+
+    @Test
+    void countByStatus_ShouldReturnEveryStatusIncludingZeroes() {
+        StatusCount open = mock(StatusCount.class);
+        when(open.getStatus()).thenReturn(IncidentStatus.OPEN);
+        when(open.getTotal()).thenReturn(7L);
+        when(incidentRepository.countGroupedByStatus()).thenReturn(List.of(open));
+
+        Map<IncidentStatus, Long> counts = incidentService.countByStatus();
+
+        assertEquals(IncidentStatus.values().length, counts.size());
+        assertEquals(7L, counts.get(IncidentStatus.OPEN));
+        assertEquals(0L, counts.get(IncidentStatus.CLOSED));
+        verify(incidentRepository, times(1)).countGroupedByStatus();
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.dto.IncidentStatsDTO;
+import br.com.lucena.incident.dto.StatsBucketDTO;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.service.IncidentStatsRollup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncidentStatsRollupTest {
+
+    private IncidentStatsRollup rollup;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        rollup = new IncidentStatsRollup(24, 30);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void record_ShouldCountCreatedAndClosedWithTimeToClose() {
+        for (long id = 1; id <= 3; id++) {
+            rollup.record(incident(id, IncidentStatus.OPEN, now.minusMinutes(id * 10), null, 0L));
+        }
+        rollup.record(incident(1L, IncidentStatus.IN_PROGRESS, now.minusMinutes(10), null, 1L));
+        for (long id = 1; id <= 3; id++) {
+            rollup.record(incident(id, IncidentStatus.CLOSED, now.minusMinutes(id * 10), now, 2L));
+        }
+
+        IncidentStatsDTO stats = rollup.snapshot(24, 30);
+        StatsBucketDTO hour = bucket(stats.getHourly(), now.truncatedTo(ChronoUnit.HOURS));
+        StatsBucketDTO day = bucket(stats.getDaily(), now.truncatedTo(ChronoUnit.DAYS));
+
+        assertEquals(3, hour.getClosed());
+        assertEquals(1200.0, hour.getMeanTimeToCloseSeconds());
+        assertEquals(1200L, hour.getP50TimeToCloseSeconds(), 1200 * 0.03);
+        assertEquals(1800L, hour.getP95TimeToCloseSeconds());
+        assertEquals(3, day.getClosed());
+        assertEquals(24, stats.getHourly().size());
+        assertEquals(30, stats.getDaily().size());
+        assertEquals(3L, stats.getCurrentByStatus().get(IncidentStatus.CLOSED));
+        assertEquals(0L, stats.getCurrentByStatus().get(IncidentStatus.OPEN));
+        assertEquals(0L, stats.getCurrentByStatus().get(IncidentStatus.IN_PROGRESS));
+    }
+
+    @Test
+    void record_ShouldIgnoreStaleAndRepeatedPublications() {
+        rollup.record(incident(1L, IncidentStatus.OPEN, now, null, 0L));
+        rollup.record(incident(1L, IncidentStatus.RESOLVED, now, null, 2L));
+        // Chegou depois da versão 2
+        rollup.record(incident(1L, IncidentStatus.IN_PROGRESS, now, null, 1L));
+        rollup.record(incident(1L, IncidentStatus.CLOSED, now, now, 3L));
+        rollup.record(incident(1L, IncidentStatus.CLOSED, now, now, 3L));
+        rollup.record(incident(1L, IncidentStatus.RESOLVED, now, null, 2L));
+
+        IncidentStatsDTO stats = rollup.snapshot(1, 1);
+
+        assertEquals(1L, stats.getCurrentByStatus().get(IncidentStatus.CLOSED));
+        assertEquals(0L, stats.getCurrentByStatus().get(IncidentStatus.RESOLVED));
+        assertEquals(0L, stats.getCurrentByStatus().get(IncidentStatus.IN_PROGRESS));
+        assertEquals(1, stats.getDaily().get(0).getCreated());
+        assertEquals(1, stats.getDaily().get(0).getClosed());
+    }
+
+    @Test
+    void load_ShouldSeedFromRowsAndSkipOnesAlreadySeenByWrites() {
+        rollup.load(1L, 0L, IncidentStatus.OPEN, now.minusDays(2), null);
+        rollup.load(2L, 3L, IncidentStatus.CLOSED, now.minusDays(2), now.minusDays(1));
+        rollup.record(incident(3L, IncidentStatus.OPEN, now, null, 0L));
+        // A carga alcança a linha criada durante ela
+        rollup.load(3L, 0L, IncidentStatus.OPEN, now, null);
+
+        IncidentStatsDTO stats = rollup.snapshot(24, 30);
+
+        assertEquals(2L, stats.getCurrentByStatus().get(IncidentStatus.OPEN));
+        assertEquals(1L, stats.getCurrentByStatus().get(IncidentStatus.CLOSED));
+        assertEquals(2, bucket(stats.getDaily(), now.minusDays(2).truncatedTo(ChronoUnit.DAYS)).getCreated());
+        assertEquals(86400.0, bucket(stats.getDaily(), now.minusDays(1).truncatedTo(ChronoUnit.DAYS))
+                .getMeanTimeToCloseSeconds());
+        assertEquals(1, bucket(stats.getDaily(), now.truncatedTo(ChronoUnit.DAYS)).getCreated());
+    }
+
+    @Test
+    void deleted_ShouldOnlyAdjustCurrentCounts() {
+        rollup.record(incident(1L, IncidentStatus.OPEN, now, null, 0L));
+        rollup.record(incident(1L, IncidentStatus.IN_PROGRESS, now, null, 1L));
+        rollup.load(2L, 4L, IncidentStatus.CLOSED, now, now);
+
+        rollup.deleted(1L, IncidentStatus.OPEN);
+        rollup.deleted(2L, IncidentStatus.CLOSED);
+        IncidentStatsDTO stats = rollup.snapshot(1, 1);
+
+        stats.getCurrentByStatus().values().forEach(count -> assertEquals(0L, count));
+        assertEquals(2, stats.getDaily().get(0).getCreated());
+    }
+
+    @Test
+    void snapshot_ShouldKeepOnlyRetainedBuckets() {
+        rollup.load(1L, 0L, IncidentStatus.OPEN, now.minusDays(3), null);
+        rollup.load(2L, 0L, IncidentStatus.OPEN, now.minusDays(45), null);
+
+        IncidentStatsDTO stats = rollup.snapshot(1000, 1000);
+
+        assertEquals(24, stats.getHourly().size());
+        assertEquals(30, stats.getDaily().size());
+        assertEquals(0, stats.getHourly().stream().mapToLong(StatsBucketDTO::getCreated).sum());
+        assertEquals(1, stats.getDaily().stream().mapToLong(StatsBucketDTO::getCreated).sum());
+        assertEquals(2L, stats.getCurrentByStatus().get(IncidentStatus.OPEN));
+    }
+
+    @Test
+    void percentiles_ShouldStayWithinHistogramPrecision() {
+        for (long id = 1; id <= 1000; id++) {
+            rollup.load(id, 0L, IncidentStatus.CLOSED, now.minusSeconds(id * 60), now);
+        }
+
+        StatsBucketDTO day = bucket(rollup.snapshot(1, 1).getDaily(), now.truncatedTo(ChronoUnit.DAYS));
+
+        assertEquals(30030.0, day.getMeanTimeToCloseSeconds());
+        assertEquals(30000, day.getP50TimeToCloseSeconds(), 30000 * 0.03);
+        assertEquals(57000, day.getP95TimeToCloseSeconds(), 57000 * 0.03);
+    }
+
+    private StatsBucketDTO bucket(List<StatsBucketDTO> buckets, LocalDateTime start) {
+        return buckets.stream().filter(bucket -> bucket.getStart().equals(start)).findFirst().orElseThrow();
+    }
+
+    private IncidentResponseDTO incident(Long id, IncidentStatus status, LocalDateTime createdAt,
+                                         LocalDateTime closedAt, Long version) {
+        return new IncidentResponseDTO(id, "Incident " + id, "Description " + id, status,
+                createdAt, now, closedAt, version, 1L);
+    }
+}
@@ -0,0 +1,219 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.ImportResultDTO;
+import br.com.lucena.incident.dto.IncidentHistoryEntryDTO;
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.InvalidSnapshotException;
+import br.com.lucena.incident.model.IncidentEventType;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentRepository;
+import br.com.lucena.incident.service.IncidentArchiver;
+import br.com.lucena.incident.service.IncidentIdAllocator;
+import br.com.lucena.incident.service.IncidentService;
+import br.com.lucena.incident.service.IncidentTransferService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Exportação e importação contra H2 reais: uma base exportada e importada em outra vazia,
+// reimportações e arquivos cortados, e o snapshot do reinício rápido
+class IncidentTransferServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_456_000);
+
+    @TempDir
+    private Path dataDir;
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void importFrom_ExportOfAnotherDatabase_ShouldPreserveIdsDatesAndCounters() throws Exception {
+        ConfigurableApplicationContext source = start("transfersource");
+        seed(source, 10, 14);
+        byte[] snapshot = export(source);
+        ConfigurableApplicationContext target = start("transfertarget");
+
+        ImportResultDTO result = importInto(target, snapshot);
+
+        assertEquals(5, result.getImported());
+        assertEquals(0, result.getSkipped());
+        IncidentService sourceService = source.getBean(IncidentService.class);
+        IncidentService targetService = target.getBean(IncidentService.class);
+        for (long id = 10; id <= 14; id++) {
+            assertEquals(sourceService.getIncidentById(id), targetService.getIncidentById(id));
+        }
+        assertEquals(IncidentEventType.CREATED, targetService.getHistory(12L).get(0).getType());
+        assertEquals(5, targetService.search("seeded", 0, 50).getTotal());
+        // O gerador de ids passou dos importados
+        assertTrue(targetService.createIncident(request("After import")).getIdIncident() > 14);
+    }
+
+    @Test
+    void importFrom_RepeatedOrTruncated_ShouldSkipExistingAndRejectTheRest() throws Exception {
+        ConfigurableApplicationContext context = start("transferrepeat");
+        seed(context, 1, 3);
+        byte[] snapshot = export(context);
+
+        ImportResultDTO repeated = importInto(context, snapshot);
+        InvalidSnapshotException truncated = assertThrows(InvalidSnapshotException.class,
+                () -> importInto(context, Arrays.copyOf(snapshot, snapshot.length - 5)));
+        InvalidSnapshotException garbage = assertThrows(InvalidSnapshotException.class,
+                () -> importInto(context, "id,name\n1,Disk full\n".getBytes()));
+
+        assertEquals(0, repeated.getImported());
+        assertEquals(3, repeated.getSkipped());
+        assertEquals("Snapshot ended before its end marker, after 3 incidents", truncated.getMessage());
+        assertEquals("Not an incident snapshot", garbage.getMessage());
+    }
+
+    @Test
+    void importFrom_OverADeletedIncident_ShouldRestoreItAfterItsHistory() throws Exception {
+        ConfigurableApplicationContext context = start("transferrestore");
+        IncidentService service = context.getBean(IncidentService.class);
+        Long id = service.createIncident(request("Disk full")).getIdIncident();
+        byte[] snapshot = export(context);
+        service.deleteIncident(id);
+
+        ImportResultDTO result = importInto(context, snapshot);
+        IncidentResponseDTO restored = service.getIncidentById(id);
+        IncidentResponseDTO inProgress = service.updateStatus(id, IncidentStatus.IN_PROGRESS);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2L, restored.getVersion());
+        assertEquals(3L, inProgress.getVersion());
+        assertEquals(List.of(IncidentEventType.CREATED, IncidentEventType.DELETED, IncidentEventType.CREATED,
+                        IncidentEventType.STATUS_CHANGED),
+                service.getHistory(id).stream().map(IncidentHistoryEntryDTO::getType).toList());
+    }
+
+    @Test
+    void advancePast_ShouldDiscardTheIdsLeftInMemoryAndRestartTheSequenceAboveTheImported() {
+        IncidentIdAllocator allocator = start("transferallocator").getBean(IncidentIdAllocator.class);
+        Long first = allocator.nextId();
+
+        allocator.advancePast(first + 10);
+        Long afterBlock = allocator.nextId();
+        allocator.advancePast(afterBlock + 1000);
+
+        // O bloco em memória ainda tinha first + 1 .. first + 49
+        assertTrue(afterBlock > first + 49);
+        assertEquals(afterBlock + 1001, allocator.nextId());
+    }
+
+    @Test
+    void snapshot_SavedOnShutdown_ShouldBeLoadedBeforeTheApplicationIsReady() {
+        String path = "--incident.snapshot.path=" + dataDir.resolve("incidents.snapshot");
+        ConfigurableApplicationContext first = start("snapshotfirst", path, "--incident.snapshot.save-on-shutdown=true");
+        IncidentService firstService = first.getBean(IncidentService.class);
+        IncidentResponseDTO open = firstService.createIncident(request("Disk full"));
+        IncidentResponseDTO inProgress = firstService.updateStatus(
+                firstService.createIncident(request("CPU high")).getIdIncident(), IncidentStatus.IN_PROGRESS);
+        first.close();
+
+        ConfigurableApplicationContext second = start("snapshotsecond", path, "--incident.snapshot.load-on-startup=true");
+        IncidentService secondService = second.getBean(IncidentService.class);
+
+        assertEquals(open, secondService.getIncidentById(open.getIdIncident()));
+        assertEquals(inProgress, secondService.getIncidentById(inProgress.getIdIncident()));
+        assertEquals(2, secondService.getLatest20Incidents().size());
+        assertEquals(1L, secondService.getStats(24, 30).getCurrentByStatus().get(IncidentStatus.IN_PROGRESS));
+    }
+
+    @Test
+    void snapshot_ShouldRestoreArchivedIncidentsAndHistory() {
+        String path = "--incident.snapshot.path=" + dataDir.resolve("incidents.snapshot");
+        ConfigurableApplicationContext first = start("snapshothistory", path, "--incident.snapshot.save-on-shutdown=true");
+        IncidentService firstService = first.getBean(IncidentService.class);
+        Long open = firstService.createIncident(request("Disk full")).getIdIncident();
+        firstService.updateIncident(open, request("Disk almost full"));
+        firstService.updateStatus(open, IncidentStatus.IN_PROGRESS);
+        Long closed = firstService.createIncident(request("CPU high")).getIdIncident();
+        for (IncidentStatus status : List.of(IncidentStatus.IN_PROGRESS, IncidentStatus.RESOLVED, IncidentStatus.CLOSED)) {
+            firstService.updateStatus(closed, status);
+        }
+        first.getBean(JdbcTemplate.class).update("UPDATE incidents SET closed_at = ? WHERE id_incident = ?",
+                LocalDateTime.now().minusDays(60), closed);
+        first.getBean(IncidentArchiver.class).archiveClosedIncidents();
+        IncidentResponseDTO archived = first.getBean(IncidentRepository.class).findArchivedDtoById(closed).orElseThrow();
+        List<IncidentHistoryEntryDTO> openHistory = firstService.getHistory(open);
+        List<IncidentHistoryEntryDTO> closedHistory = firstService.getHistory(closed);
+        first.close();
+
+        ConfigurableApplicationContext second = start("snapshothistoryrestored", path,
+                "--incident.snapshot.load-on-startup=true");
+        IncidentService secondService = second.getBean(IncidentService.class);
+
+        assertEquals(archived, secondService.getIncidentById(closed));
+        assertEquals(1L, second.getBean(IncidentRepository.class).count());
+        assertEquals(openHistory, secondService.getHistory(open));
+        assertEquals(closedHistory, secondService.getHistory(closed));
+        assertEquals(3, openHistory.size());
+        // O histórico segue de onde parou
+        assertEquals(3L, secondService.updateStatus(open, IncidentStatus.RESOLVED).getVersion());
+    }
+
+    private ConfigurableApplicationContext start(String database, String... args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(Stream.concat(Stream.of("--spring.datasource.url=jdbc:h2:mem:" + database,
+                                "--incident.archive.enabled=false",
+                                "--spring.jpa.show-sql=false",
+                                "--spring.devtools.restart.enabled=false",
+                                "--logging.level.root=WARN"), Stream.of(args))
+                        .toArray(String[]::new));
+        contexts.add(context);
+        return context;
+    }
+
+    // Um incidente por hora com status em ciclo; os CLOSED com closedAt, todos com ocorrências e versão
+    private static void seed(ConfigurableApplicationContext context, long from, long to) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        IncidentStatus[] cycle = IncidentStatus.values();
+        for (long id = from; id <= to; id++) {
+            IncidentStatus status = cycle[(int) (id % cycle.length)];
+            LocalDateTime createdAt = BASE.plusHours(id);
+            jdbcTemplate.update("INSERT INTO incidents (id_incident, name, description, status, created_at, " +
+                            "updated_at, closed_at, occurrences, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    id, "Incident " + id, "Seeded incident número " + id, status.name(), createdAt,
+                    createdAt.plusMinutes(30), status == IncidentStatus.CLOSED ? createdAt.plusMinutes(30) : null,
+                    id, 2L);
+        }
+    }
+
+    private static byte[] export(ConfigurableApplicationContext context) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        context.getBean(IncidentTransferService.class).exportTo(Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static ImportResultDTO importInto(ConfigurableApplicationContext context, byte[] snapshot) throws Exception {
+        return context.getBean(IncidentTransferService.class)
+                .importFrom(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+    }
+
+    private static IncidentRequestDTO request(String name) {
+        return new IncidentRequestDTO(name, "Database node ran out of disk", null, null);
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.service.LatestIncidentsBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatestIncidentsBufferTest {
+
+    private LatestIncidentsBuffer buffer;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new LatestIncidentsBuffer(3);
+        base = LocalDateTime.of(2024, 1, 1, 0, 0);
+    }
+
+    @Test
+    void upsert_ShouldKeepNewestFirstAndTrimToSize() {
+        buffer.reseed(limit -> List.of());
+        LongStream.rangeClosed(1, 5).forEach(id -> buffer.upsert(incident(id)));
+
+        List<IncidentResponseDTO> latest = buffer.latest();
+
+        assertEquals(List.of(5L, 4L, 3L), ids(latest));
+    }
+
+    @Test
+    void upsert_WithExistingIncident_ShouldReplaceInPlace() {
+        buffer.reseed(limit -> List.of(incident(3), incident(2), incident(1)));
+        IncidentResponseDTO updated = incident(2);
+        updated.setStatus(IncidentStatus.CLOSED);
+
+        buffer.upsert(updated);
+
+        assertEquals(List.of(3L, 2L, 1L), ids(buffer.latest()));
+        assertEquals(IncidentStatus.CLOSED, buffer.latest().get(1).getStatus());
+    }
+
+    @Test
+    void upsert_WithStaleVersion_ShouldKeepNewerState() {
+        buffer.reseed(limit -> List.of(incident(3), incident(2), incident(1)));
+        IncidentResponseDTO newer = incident(2);
+        newer.setStatus(IncidentStatus.CLOSED);
+        newer.setVersion(2L);
+        IncidentResponseDTO stale = incident(2);
+        stale.setStatus(IncidentStatus.IN_PROGRESS);
+        stale.setVersion(1L);
+
+        buffer.upsert(newer);
+        buffer.upsert(stale);
+
+        assertEquals(IncidentStatus.CLOSED, buffer.latest().get(1).getStatus());
+    }
+
+    @Test
+    void upsert_WithIncidentOlderThanFullWindow_ShouldBeIgnored() {
+        buffer.reseed(limit -> LongStream.iterate(10, id -> id - 1).limit(limit).mapToObj(this::incident).toList());
+
+        buffer.upsert(incident(1));
+
+        assertFalse(ids(buffer.latest()).contains(1L));
+    }
+
+    @Test
+    void remove_BeyondSlack_ShouldReportUnderfilled() {
+        buffer.reseed(limit -> LongStream.iterate(10, id -> id - 1).limit(limit).mapToObj(this::incident).toList());
+
+        LongStream.rangeClosed(6, 10).forEach(buffer::remove);
+
+        assertTrue(buffer.isUnderfilled());
+    }
+
+    @Test
+    void upsert_FromConcurrentWriters_ShouldNotLoseIncidents() throws InterruptedException {
+        LatestIncidentsBuffer wide = new LatestIncidentsBuffer(1000);
+        wide.reseed(limit -> List.of());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (long id = 1; id <= 800; id++) {
+            long current = id;
+            executor.submit(() -> wide.upsert(incident(current)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Long> ids = ids(wide.latest());
+        assertEquals(800, ids.size());
+        assertEquals(800L, ids.get(0));
+        assertEquals(1L, ids.get(799));
+    }
+
+    private IncidentResponseDTO incident(long id) {
+        return new IncidentResponseDTO(id, "Incident " + id, "Description " + id, IncidentStatus.OPEN,
+                base.plusSeconds(id), base.plusSeconds(id), null, 0L, 1L);
+    }
+
+    private List<Long> ids(List<IncidentResponseDTO> incidents) {
+        List<Long> ids = new ArrayList<>();
+        incidents.forEach(incident -> ids.add(incident.getIdIncident()));
+        return ids;
+    }
+}
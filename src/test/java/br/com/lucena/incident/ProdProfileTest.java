@@ -0,0 +1,53 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.service.IncidentService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Perfil prod contra um H2 em arquivo: migrations aplicadas, mapeamento validado
+// pelo Hibernate e incidentes preservados entre reinícios
+class ProdProfileTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void prodProfile_ShouldMigrateSchemaAndKeepIncidentsAcrossRestarts() {
+        IncidentResponseDTO created;
+        try (ConfigurableApplicationContext context = start()) {
+            MigrationInfoService migrations = context.getBean(Flyway.class).info();
+            assertNotNull(migrations.current());
+            assertEquals(0, migrations.pending().length);
+            created = context.getBean(IncidentService.class)
+                    .createIncident(new IncidentRequestDTO("Disk full", "Database node ran out of disk", null, null));
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            IncidentService incidentService = context.getBean(IncidentService.class);
+            assertEquals("Disk full", incidentService.getIncidentById(created.getIdIncident()).getName());
+            IncidentResponseDTO next = incidentService.createIncident(
+                    new IncidentRequestDTO("Disk full again", "Database node ran out of disk", null, null));
+            assertNotEquals(created.getIdIncident(), next.getIdIncident());
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod")
+                .run("--INCIDENT_DATA_DIR=" + dataDir,
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,305 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.config.AdmissionControlledDataSource;
+import br.com.lucena.incident.config.ReadYourWritesWindow;
+import br.com.lucena.incident.config.ReplicaPool;
+import br.com.lucena.incident.dto.IncidentRequestDTO;
+import br.com.lucena.incident.dto.IncidentResponseDTO;
+import br.com.lucena.incident.exception.InvalidStatusTransitionException;
+import br.com.lucena.incident.model.IncidentStatus;
+import br.com.lucena.incident.repository.IncidentRepository;
+import br.com.lucena.incident.service.IncidentCache;
+import br.com.lucena.incident.service.IncidentService;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Roteamento contra três H2 embarcados: um primário e duas "réplicas" migradas à parte e com
+// quantidades diferentes de incidentes, então a contagem lida mostra de onde veio a leitura.
+// A segunda réplica fica atrás de um servidor TCP que o teste derruba e religa.
+class ReadWriteRoutingTest {
+
+    private static final AtomicInteger RUN = new AtomicInteger();
+    private static final long PRIMARY = 0;
+    private static final long REPLICA_ONE = 2;
+    private static final long REPLICA_TWO = 3;
+
+    private String primaryUrl;
+    private String replicaOneUrl;
+    private String replicaTwoUrl;
+    private String replicaTwoName;
+    private int replicaTwoPort;
+    private Server replicaTwoServer;
+    private ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        int run = RUN.incrementAndGet();
+        primaryUrl = "jdbc:h2:mem:routing-primary-" + run;
+        replicaOneUrl = "jdbc:h2:mem:routing-replica1-" + run + ";DB_CLOSE_DELAY=-1";
+        replicaTwoName = "routing-replica2-" + run;
+        seedReplica(replicaOneUrl, REPLICA_ONE);
+        seedReplica("jdbc:h2:mem:" + replicaTwoName + ";DB_CLOSE_DELAY=-1", REPLICA_TWO);
+        try (ServerSocket socket = new ServerSocket(0)) {
+            replicaTwoPort = socket.getLocalPort();
+        }
+        replicaTwoUrl = "jdbc:h2:tcp://localhost:" + replicaTwoPort + "/mem:" + replicaTwoName;
+        startReplicaTwo();
+
+        context = start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        context.close();
+        replicaTwoServer.stop();
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldAlternateBetweenReplicasWhileWritesGoToThePrimary() throws SQLException {
+        IncidentRepository repository = context.getBean(IncidentRepository.class);
+
+        Set<Long> requestReads = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            requestReads.add(as("client-1", repository::count));
+        }
+        long backgroundRead = repository.count();
+        as("client-1", () -> context.getBean(IncidentService.class).createIncident(request("Disk full")));
+
+        assertEquals(Set.of(REPLICA_ONE, REPLICA_TWO), requestReads);
+        // Fora de requisições (índices, tarefas agendadas) a leitura é do primário
+        assertEquals(PRIMARY, backgroundRead);
+        assertEquals(PRIMARY + 1, countIn(primaryUrl));
+        assertEquals(REPLICA_ONE, countIn(replicaOneUrl));
+        assertEquals(REPLICA_TWO, countIn(replicaTwoUrl));
+    }
+
+    @Test
+    void readYourWrites_ShouldSendTheWritersReadsToThePrimaryUntilTheWindowCloses() throws Exception {
+        IncidentRepository repository = context.getBean(IncidentRepository.class);
+        as("client-1", () -> context.getBean(IncidentService.class).createIncident(request("Disk full")));
+
+        long writerRead = as("client-1", repository::count);
+        long writerReadAgain = as("client-1", repository::count);
+        // Mesmo endereço remoto (o padrão do MockHttpServletRequest), outro cliente
+        long otherClientRead = as("client-2", repository::count);
+        Thread.sleep(800);
+        long writerReadAfterWindow = as("client-1", repository::count);
+
+        assertEquals(PRIMARY + 1, writerRead);
+        assertEquals(PRIMARY + 1, writerReadAgain);
+        assertTrue(List.of(REPLICA_ONE, REPLICA_TWO).contains(otherClientRead));
+        assertTrue(List.of(REPLICA_ONE, REPLICA_TWO).contains(writerReadAfterWindow));
+    }
+
+    @Test
+    void readYourWrites_ShouldIdentifyAnonymousWritersByCookieAndIgnoreTransactionsThatOnlyRead() {
+        IncidentRepository repository = context.getBean(IncidentRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        inRequest(new MockHttpServletRequest(), response,
+                () -> context.getBean(IncidentService.class).createIncident(request("Disk full")));
+        Cookie cookie = response.getCookie(ReadYourWritesWindow.CLIENT_COOKIE);
+
+        long writerRead = as(cookie.getValue(), repository::count);
+        // Transação read-write que só leu: usa o primário, mas não abre a janela
+        long readWriteTransaction = as("client-2", () -> transactionTemplate.execute(status -> repository.count()));
+        long readAfterIt = as("client-2", repository::count);
+
+        assertEquals(PRIMARY + 1, writerRead);
+        assertEquals(PRIMARY + 1, readWriteTransaction);
+        assertTrue(List.of(REPLICA_ONE, REPLICA_TWO).contains(readAfterIt));
+    }
+
+    @Test
+    void cacheAndLatestLoads_ShouldReadThePrimaryEvenInsideARequest() {
+        IncidentService service = context.getBean(IncidentService.class);
+        IncidentCache cache = context.getBean(IncidentCache.class);
+        Long id = as("client-1", () -> service.createIncident(request("Disk full"))).getIdIncident();
+
+        // Outro cliente, fora da janela de read-your-writes: as réplicas ainda têm o id com outro incidente
+        cache.evict(id);
+        IncidentResponseDTO loaded = as("client-2", () -> service.getIncidentById(id));
+        cache.evict(id);
+        List<IncidentResponseDTO> searched = as("client-2", () -> service.search("disk", 0, 10).getContent());
+        List<IncidentResponseDTO> latest = as("client-2", () -> {
+            service.seedLatestIncidents();
+            return service.getLatest20Incidents();
+        });
+
+        assertEquals("Disk full", loaded.getName());
+        assertEquals(List.of("Disk full"), searched.stream().map(IncidentResponseDTO::getName).toList());
+        assertEquals(List.of("Disk full"), latest.stream().map(IncidentResponseDTO::getName).toList());
+    }
+
+    @Test
+    void rejectedStatusChange_ShouldBeDiagnosedAgainstThePrimary() throws SQLException {
+        IncidentService service = context.getBean(IncidentService.class);
+        Long id = as("client-1", () -> service.createIncident(request("Disk full"))).getIdIncident();
+        // As réplicas ainda não viram o incidente em OPEN: nelas ele está IN_PROGRESS
+        for (String url : List.of(replicaOneUrl, replicaTwoUrl)) {
+            execute(url, "UPDATE incidents SET status = 'IN_PROGRESS' WHERE id_incident = " + id);
+        }
+
+        // OPEN -> RESOLVED é inválida (422); lida da réplica, pareceria um conflito (409)
+        InvalidStatusTransitionException rejected = assertThrows(InvalidStatusTransitionException.class,
+                () -> as("client-2", () -> service.updateStatus(id, IncidentStatus.RESOLVED)));
+
+        assertTrue(rejected.getMessage().contains("cannot move from OPEN to RESOLVED"));
+    }
+
+    @Test
+    void admissionControl_ShouldLimitEachPoolSeparately() throws SQLException {
+        context.close();
+        context = start("--incident.db.admission.enabled=true",
+                "--incident.db.admission.timeout=PT0.2S",
+                "--spring.datasource.hikari.maximum-pool-size=2");
+        DataSource dataSource = context.getBean(DataSource.class);
+        IncidentRepository repository = context.getBean(IncidentRepository.class);
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            // Fora de requisições as conexões são do primário; o comando força a conexão física
+            for (int i = 0; i < 2; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                connection.createStatement().close();
+            }
+            long replicaRead = as("client-1", repository::count);
+
+            assertTrue(List.of(REPLICA_ONE, REPLICA_TWO).contains(replicaRead));
+            assertThrows(AdmissionControlledDataSource.AdmissionTimeoutException.class, () -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    connection.createStatement().close();
+                }
+            });
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    void replicaThatStopsAnswering_ShouldBeEjectedAndReadmittedWhenItRecovers() throws Exception {
+        IncidentRepository repository = context.getBean(IncidentRepository.class);
+        ReplicaPool replicaPool = context.getBean(ReplicaPool.class);
+
+        replicaTwoServer.stop();
+        replicaPool.checkHealth();
+        List<String> healthyWhileDown = replicaPool.healthyReplicas();
+        Set<Long> readsWhileDown = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            readsWhileDown.add(as("client-1", repository::count));
+        }
+        startReplicaTwo();
+        replicaPool.checkHealth();
+        Set<Long> readsAfterRecovery = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            readsAfterRecovery.add(as("client-1", repository::count));
+        }
+
+        assertEquals(List.of("replica-1"), healthyWhileDown);
+        assertEquals(Set.of(REPLICA_ONE), readsWhileDown);
+        assertEquals(List.of("replica-1", "replica-2"), replicaPool.healthyReplicas());
+        assertEquals(Set.of(REPLICA_ONE, REPLICA_TWO), readsAfterRecovery);
+    }
+
+    private ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(IncidentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(Stream.concat(Stream.of("--spring.datasource.url=" + primaryUrl,
+                                "--spring.jpa.open-in-view=false",
+                                "--incident.routing.enabled=true",
+                                "--incident.routing.replica-urls=" + replicaOneUrl + "," + replicaTwoUrl,
+                                "--incident.routing.read-your-writes=PT0.5S",
+                                "--incident.routing.replica-connection-timeout=PT0.5S",
+                                "--incident.routing.health-check-interval=PT1H",
+                                "--incident.archive.enabled=false",
+                                "--spring.jpa.show-sql=false",
+                                "--spring.devtools.restart.enabled=false",
+                                "--logging.level.root=WARN"), Stream.of(args))
+                        .toArray(String[]::new));
+    }
+
+    // Executa como se estivesse atendendo uma requisição HTTP do cliente com o cookie dado
+    private static <T> T as(String client, Supplier<T> action) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWritesWindow.CLIENT_COOKIE, client));
+        return inRequest(request, new MockHttpServletResponse(), action);
+    }
+
+    private static <T> T inRequest(MockHttpServletRequest request, MockHttpServletResponse response, Supplier<T> action) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            return action.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private void startReplicaTwo() throws SQLException {
+        replicaTwoServer = Server.createTcpServer("-tcpPort", Integer.toString(replicaTwoPort)).start();
+    }
+
+    private static void seedReplica(String url, long incidents) throws SQLException {
+        Flyway.configure().dataSource(url, "sa", "password").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password");
+             Statement statement = connection.createStatement()) {
+            for (long id = 1; id <= incidents; id++) {
+                statement.execute("INSERT INTO incidents (id_incident, name, description, status, created_at, updated_at, "
+                        + "occurrences, version) VALUES (" + id + ", 'Replica incident', 'Replicated from the primary', "
+                        + "'OPEN', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 1, 0)");
+            }
+        }
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static long countIn(String url) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password");
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM incidents")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static IncidentRequestDTO request(String name) {
+        return new IncidentRequestDTO(name, "Database node ran out of disk", null, null);
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.lucena.incident;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tempo até a primeira requisição e RSS do jar fino em três modos: JVM comum, Spring AOT e
+// Spring AOT com o arquivo CDS do treino. Cada execução é um processo novo, como uma réplica nova.
+// Roda no verify do perfil startup, depois do package: mvn -P startup verify
+@Tag("startup")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void recordTimeToFirstRequestAndRss() throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar", "target/incident-management-0.0.1-SNAPSHOT.jar"));
+        Path cdsArchive = Path.of(System.getProperty("startup.cds-archive", "target/application.jsa"));
+        assertTrue(Files.exists(jar), "Package with -P startup first: " + jar);
+        assertTrue(Files.exists(cdsArchive), "CDS archive missing: " + cdsArchive);
+
+        List<Result> results = List.of(
+                measure("jvm", jar),
+                measure("aot", jar, "-Dspring.aot.enabled=true"),
+                measure("aot+cds", jar, "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + cdsArchive));
+
+        System.out.printf("%-10s %22s %22s %12s%n", "mode", "first request (ms)", "best of " + RUNS + " (ms)", "RSS (MB)");
+        results.forEach(result -> System.out.printf("%-10s %22d %22d %12d%n",
+                result.mode(), result.timeToFirstRequestMillis(), result.bestTimeToFirstRequestMillis(), result.rssMegabytes()));
+        Path output = Path.of(System.getProperty("startup.result", "target/startup-result.json"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+    }
+
+    // Mediana das execuções; o RSS é o da execução mediana, lido logo após a primeira resposta
+    private Result measure(String mode, Path jar, String... jvmArguments) throws Exception {
+        List<long[]> runs = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            runs.add(run(jar, jvmArguments));
+        }
+        runs.sort((a, b) -> Long.compare(a[0], b[0]));
+        long[] median = runs.get(runs.size() / 2);
+        return new Result(mode, RUNS, median[0], runs.get(0)[0], median[1]);
+    }
+
+    // {milissegundos até o primeiro 200, RSS em MB}
+    private long[] run(Path jar, String... jvmArguments) throws Exception {
+        int port = freePort();
+        List<String> command = Stream.of(
+                        Stream.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()),
+                        Stream.of(jvmArguments),
+                        Stream.of("-jar", jar.toString(),
+                                "--server.port=" + port,
+                                "--spring.datasource.url=jdbc:h2:mem:startup",
+                                "--spring.jpa.show-sql=false",
+                                "--logging.level.root=WARN"))
+                .flatMap(s -> s)
+                .toList();
+        HttpRequest firstRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/incidents/latest")).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            long deadline = start + TIMEOUT.toNanos();
+            while (!served(firstRequest)) {
+                assertTrue(process.isAlive(), () -> "Application exited with " + process.exitValue() + ": " + command);
+                assertTrue(System.nanoTime() < deadline, "No response within " + TIMEOUT + ": " + command);
+                Thread.sleep(5);
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            return new long[]{elapsed, rssMegabytes(process.pid())};
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private boolean served(HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // VmRSS de /proc; -1 fora do Linux
+    private static long rssMegabytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")) / 1024)
+                    .findFirst()
+                    .orElse(-1L);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Result(String mode, int runs, long timeToFirstRequestMillis, long bestTimeToFirstRequestMillis,
+                          long rssMegabytes) {}
+}
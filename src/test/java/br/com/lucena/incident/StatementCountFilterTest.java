@@ -0,0 +1,54 @@
+package br.com.lucena.incident;
+
+import br.com.lucena.incident.config.StatementCountFilter;
+import br.com.lucena.incident.config.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StatementCountFilter filter = new StatementCountFilter(registry);
+    private final StatementCounter counter = new StatementCounter();
+
+    @Test
+    void filter_ShouldRecordStatementsPerRequestByRoute() throws Exception {
+        execute("/api/incidents/{id}", 3);
+        execute("/api/incidents/{id}", 1);
+        // Fora de uma requisição nada é contado
+        counter.inspect("select 1");
+
+        DistributionSummary summary = registry.get("incident.db.statements")
+                .tag("method", "GET")
+                .tag("uri", "/api/incidents/{id}")
+                .summary();
+        assertEquals(2, summary.count());
+        assertEquals(4, summary.totalAmount());
+        assertEquals(3, summary.max());
+    }
+
+    @Test
+    void filter_WithUnmappedRequest_ShouldUseUnknownRoute() throws Exception {
+        execute(null, 0);
+
+        assertEquals(1, registry.get("incident.db.statements").tag("uri", "UNKNOWN").summary().count());
+    }
+
+    private void execute(String route, int statements) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/incidents/1");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            if (route != null) {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route);
+            }
+            for (int i = 0; i < statements; i++) {
+                counter.inspect("select * from incidents where id_incident = ?");
+            }
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.lucena.incident.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Carga configurável contra a API, com relatório JSON em target/load-result.json.
+// Fora da suíte padrão: mvn test -Dgroups=load -DexcludedGroups=none -Dtest=IncidentLoadTest
+// -Dload.rate=500 -Dload.duration=PT60S -Dload.mix=getById=80,create=20 -Dload.app-args="--incident.ingest.async=true"
+@Tag("load")
+class IncidentLoadTest {
+
+    @Test
+    void runConfiguredWorkload() throws Exception {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+
+        LoadReport report;
+        try (LoadHarness harness = new LoadHarness(config)) {
+            report = harness.run();
+        }
+
+        System.out.println(report.writeTo(config.result()));
+        assertTrue(report.requests() > 0);
+    }
+}
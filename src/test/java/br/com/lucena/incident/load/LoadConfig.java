@@ -0,0 +1,31 @@
+package br.com.lucena.incident.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+// Parâmetros de uma execução, lidos das propriedades load.* (mvn ... -Dload.rate=500):
+// - rate: chegadas por segundo, constantes, independentemente de quanto o servidor demora
+// - warmup/duration: aquecimento descartado e janela medida
+// - mix: ver WorkloadMix
+// - seed: incidentes criados antes do aquecimento, para getById e transições terem alvo
+// - max-in-flight: acima disso a chegada é descartada e contada em dropped, em vez de acumular sem fim
+// - app-args: argumentos extras da aplicação separados por espaço, para comparar configurações
+// - result: onde gravar o relatório JSON
+record LoadConfig(int rate, Duration warmup, Duration duration, WorkloadMix mix, int seed, int maxInFlight,
+                  List<String> appArgs, Path result) {
+
+    static LoadConfig fromSystemProperties() {
+        String appArgs = System.getProperty("load.app-args", "").trim();
+        return new LoadConfig(
+                Integer.getInteger("load.rate", 200),
+                Duration.parse(System.getProperty("load.warmup", "PT10S")),
+                Duration.parse(System.getProperty("load.duration", "PT30S")),
+                WorkloadMix.parse(System.getProperty("load.mix", WorkloadMix.DEFAULT)),
+                Integer.getInteger("load.seed", 1000),
+                Integer.getInteger("load.max-in-flight", 2000),
+                appArgs.isEmpty() ? List.of() : Arrays.asList(appArgs.split("\\s+")),
+                Path.of(System.getProperty("load.result", "target/load-result.json")));
+    }
+}
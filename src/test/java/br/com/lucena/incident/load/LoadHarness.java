@@ -0,0 +1,285 @@
+package br.com.lucena.incident.load;
+
+import br.com.lucena.incident.IncidentApplication;
+import br.com.lucena.incident.load.WorkloadMix.Operation;
+import br.com.lucena.incident.model.IncidentStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Sobe a aplicação numa porta aleatória com um H2 em memória próprio e a exercita pela API HTTP
+// em modelo aberto: as chegadas seguem uma taxa constante, sem esperar as respostas anteriores,
+// como clientes independentes em produção. Um servidor lento acumula requisições em andamento
+// em vez de receber menos tráfego, o que o modelo fechado (cada cliente espera a sua resposta)
+// esconderia. O gerador roda no mesmo processo da aplicação e disputa a mesma CPU.
+final class LoadHarness implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int SEED_CONCURRENCY = 64;
+    private static final int PAGE_SIZE = 20;
+    // Transições do ciclo de vida que o tráfego percorre; CLOSED é final
+    private static final Map<IncidentStatus, IncidentStatus> NEXT = Map.of(
+            IncidentStatus.OPEN, IncidentStatus.IN_PROGRESS,
+            IncidentStatus.IN_PROGRESS, IncidentStatus.RESOLVED,
+            IncidentStatus.RESOLVED, IncidentStatus.CLOSED);
+    private static final List<IncidentStatus> TRANSITION_SOURCES = List.of(
+            IncidentStatus.OPEN, IncidentStatus.IN_PROGRESS, IncidentStatus.RESOLVED);
+
+    private final LoadConfig config;
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Ids criados (alvos de getById) e, por status, os que ainda podem avançar
+    private final List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+    private final Map<IncidentStatus, Queue<Long>> transitionable = new EnumMap<>(IncidentStatus.class);
+    private final AtomicLong created = new AtomicLong();
+
+    // sources: configurações extras da aplicação, por exemplo um banco com latência simulada
+    LoadHarness(LoadConfig config, Class<?>... sources) {
+        this.config = config;
+        this.context = new SpringApplicationBuilder(IncidentApplication.class)
+                .sources(sources)
+                .run(Stream.concat(Stream.of("--server.port=0",
+                                "--spring.datasource.url=jdbc:h2:mem:load-harness",
+                                "--spring.jpa.show-sql=false",
+                                "--spring.devtools.restart.enabled=false",
+                                "--logging.level.root=WARN"), config.appArgs().stream())
+                        .toArray(String[]::new));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUrl = "http://localhost:" + port + "/api/incidents";
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        TRANSITION_SOURCES.forEach(status -> transitionable.put(status, new ConcurrentLinkedQueue<>()));
+    }
+
+    LoadReport run() throws InterruptedException {
+        seed();
+        runPhase(config.warmup());
+        Phase measured = runPhase(config.duration());
+        return measured.report();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        context.close();
+    }
+
+    private void seed() {
+        List<CompletableFuture<Integer>> pending = new ArrayList<>();
+        for (int i = 0; i < config.seed(); i++) {
+            pending.add(execute(Operation.CREATE));
+            if (pending.size() == SEED_CONCURRENCY) {
+                pending.forEach(CompletableFuture::join);
+                pending.clear();
+            }
+        }
+        pending.forEach(CompletableFuture::join);
+    }
+
+    // Dispara uma chegada a cada 1/rate segundos até o fim da janela e espera as pendentes
+    private Phase runPhase(Duration duration) throws InterruptedException {
+        Phase phase = new Phase(duration);
+        AtomicInteger inFlight = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double interval = 1_000_000_000.0 / config.rate();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * interval);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= config.maxInFlight()) {
+                phase.dropped.increment();
+                continue;
+            }
+            Operation operation = config.mix().pick(ThreadLocalRandom.current());
+            inFlight.incrementAndGet();
+            execute(operation).whenComplete((status, error) -> {
+                phase.record(operation, intended, status, error);
+                inFlight.decrementAndGet();
+            });
+        }
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(1);
+        }
+        phase.elapsedNanos = Math.max(System.nanoTime() - start, duration.toNanos());
+        return phase;
+    }
+
+    // Código HTTP da resposta, ou null quando a operação não tinha alvo
+    private CompletableFuture<Integer> execute(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case CREATE -> create();
+            case GET_BY_ID -> {
+                Long id = randomId(random);
+                yield id == null ? CompletableFuture.completedFuture(null) : send(get("/" + id));
+            }
+            case LATEST -> send(get("/latest"));
+            case STATUS_LIST -> {
+                IncidentStatus[] statuses = IncidentStatus.values();
+                yield send(get("/status/" + statuses[random.nextInt(statuses.length)] + "?size=" + PAGE_SIZE));
+            }
+            case STATUS_TRANSITION -> transition(random);
+        };
+    }
+
+    // Nome e descrição únicos: repetições seriam agregadas pela deduplicação e não criariam nada
+    private CompletableFuture<Integer> create() {
+        long n = created.incrementAndGet();
+        String body = "{\"name\":\"Load incident " + n + "\",\"description\":\"Generated by the load harness, request "
+                + n + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() == 201 || response.statusCode() == 202) {
+                long id = idOf(response.body());
+                ids.add(id);
+                transitionable.get(IncidentStatus.OPEN).add(id);
+            }
+            return response.statusCode();
+        });
+    }
+
+    // Avança um incidente de um status sorteado (ou do próximo que tiver algum) com expectedStatus,
+    // então a transição é sempre válida e não disputa com outra sobre o mesmo incidente
+    private CompletableFuture<Integer> transition(ThreadLocalRandom random) {
+        int first = random.nextInt(TRANSITION_SOURCES.size());
+        for (int i = 0; i < TRANSITION_SOURCES.size(); i++) {
+            IncidentStatus from = TRANSITION_SOURCES.get((first + i) % TRANSITION_SOURCES.size());
+            Long id = transitionable.get(from).poll();
+            if (id == null) {
+                continue;
+            }
+            IncidentStatus to = NEXT.get(from);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + id + "/status"))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                            "{\"status\":\"" + to + "\",\"expectedStatus\":\"" + from + "\"}"))
+                    .build();
+            return send(request).thenApply(status -> {
+                if (status == 200 && transitionable.containsKey(to)) {
+                    transitionable.get(to).add(id);
+                }
+                return status;
+            });
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private Long randomId(ThreadLocalRandom random) {
+        synchronized (ids) {
+            return ids.isEmpty() ? null : ids.get(random.nextInt(ids.size()));
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).build();
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private long idOf(String body) {
+        try {
+            return objectMapper.readTree(body).get("idIncident").asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Contadores e histogramas (em microssegundos) de uma janela
+    private final class Phase {
+
+        private final Duration duration;
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        private final Map<Operation, LongAdder> skipped = new EnumMap<>(Operation.class);
+        private final Histogram total = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder dropped = new LongAdder();
+        private long elapsedNanos;
+
+        private Phase(Duration duration) {
+            this.duration = duration;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                errors.put(operation, new LongAdder());
+                skipped.put(operation, new LongAdder());
+            }
+        }
+
+        private void record(Operation operation, long intended, Integer status, Throwable error) {
+            if (error == null && status == null) {
+                skipped.get(operation).increment();
+                return;
+            }
+            long micros = Math.min((System.nanoTime() - intended) / 1000, HIGHEST_TRACKABLE_MICROS);
+            latencies.get(operation).recordValue(micros);
+            total.recordValue(micros);
+            if (error != null || status >= 400) {
+                errors.get(operation).increment();
+            }
+        }
+
+        private LoadReport report() {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            Map<String, LoadReport.OperationReport> operations = new LinkedHashMap<>();
+            for (Operation operation : config.mix().weights().keySet()) {
+                Histogram histogram = latencies.get(operation);
+                operations.put(operation.key(), new LoadReport.OperationReport(histogram.getTotalCount(),
+                        errors.get(operation).sum(), skipped.get(operation).sum(),
+                        rounded(histogram.getTotalCount() / seconds), LoadReport.Latency.of(histogram)));
+            }
+            return new LoadReport(config.rate(), config.warmup().toMillis() / 1000.0, duration.toMillis() / 1000.0,
+                    config.mix().toString(), config.appArgs(), total.getTotalCount(),
+                    errors.values().stream().mapToLong(LongAdder::sum).sum(),
+                    skipped.values().stream().mapToLong(LongAdder::sum).sum(), dropped.sum(),
+                    rounded(total.getTotalCount() / seconds), LoadReport.Latency.of(total), operations);
+        }
+
+        private static double rounded(double value) {
+            return Math.round(value * 10) / 10.0;
+        }
+    }
+}
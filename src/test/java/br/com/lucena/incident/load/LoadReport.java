@@ -0,0 +1,46 @@
+package br.com.lucena.incident.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// Resultado da janela medida, serializado como JSON. Latências em milissegundos, medidas do
+// instante em que a requisição deveria ter saído, então atrasos do próprio gerador contam
+// contra o servidor em vez de sumirem (omissão coordenada).
+record LoadReport(int rate, double warmupSeconds, double durationSeconds, String mix, List<String> appArgs,
+                  long requests, long errors, long skipped, long dropped, double throughput, Latency latency,
+                  Map<String, OperationReport> operations) {
+
+    // Grava o relatório como JSON indentado e o devolve, para ser impresso também
+    String writeTo(Path path) throws IOException {
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(this);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, json);
+        return json;
+    }
+
+    // skipped: a operação não tinha alvo (getById sem ids, transição sem incidente aberto)
+    record OperationReport(long requests, long errors, long skipped, double throughput, Latency latency) {
+    }
+
+    record Latency(double p50, double p99, double p999, double max, double mean) {
+
+        static Latency of(Histogram micros) {
+            return new Latency(millis(micros.getValueAtPercentile(50)), millis(micros.getValueAtPercentile(99)),
+                    millis(micros.getValueAtPercentile(99.9)), millis(micros.getMaxValue()),
+                    Math.round(micros.getMean()) / 1000.0);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
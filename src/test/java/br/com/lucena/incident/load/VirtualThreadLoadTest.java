@@ -0,0 +1,92 @@
+package br.com.lucena.incident.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compara a latência p99 com threads de plataforma e com threads virtuais quando o banco está lento,
+// com o mesmo gerador em modelo aberto do IncidentLoadTest. Relatórios em target/load-result-<modo>.json.
+// Fora da suíte padrão: mvn test -Dgroups=load -DexcludedGroups=none -Dtest=VirtualThreadLoadTest
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int RATE = 1500;
+    private static final int SEEDED_INCIDENTS = 200;
+    private static final int MAX_IN_FLIGHT = 2000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+    // 90% leituras por id (servidas pelo cache) e 10% listagens por status (vão ao banco)
+    private static final String MIX = "getById=90,statusList=10";
+    // Cada checkout de conexão segura a conexão por esse tempo, simulando um banco lento
+    private static final long DB_LATENCY_MILLIS = 20;
+
+    @Test
+    void compareP99WithPlatformAndVirtualThreads() throws Exception {
+        LoadReport platform = run(false);
+        LoadReport virtual = run(true);
+
+        System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "mode", "requests", "p50 (ms)", "p99 (ms)", "errors", "dropped");
+        print("platform", platform);
+        print("virtual", virtual);
+
+        assertTrue(platform.requests() > 0 && virtual.requests() > 0);
+    }
+
+    private LoadReport run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        LoadConfig config = new LoadConfig(RATE, WARMUP, MEASUREMENT, WorkloadMix.parse(MIX), SEEDED_INCIDENTS,
+                MAX_IN_FLIGHT, List.of("--spring.threads.virtual.enabled=" + virtualThreads),
+                Path.of("target/load-result-" + mode + ".json"));
+        LoadReport report;
+        try (LoadHarness harness = new LoadHarness(config, SlowDatabaseConfig.class)) {
+            report = harness.run();
+        }
+        report.writeTo(config.result());
+        return report;
+    }
+
+    private static void print(String mode, LoadReport report) {
+        System.out.printf("%-10s %10d %10.1f %10.1f %10d %10d%n", mode, report.requests(), report.latency().p50(),
+                report.latency().p99(), report.errors(), report.dropped());
+    }
+
+    @Configuration
+    static class SlowDatabaseConfig {
+
+        @Bean
+        static BeanPostProcessor slowDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public Connection getConnection() throws SQLException {
+                                Connection connection = super.getConnection();
+                                try {
+                                    Thread.sleep(DB_LATENCY_MILLIS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                return connection;
+                            }
+                        };
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
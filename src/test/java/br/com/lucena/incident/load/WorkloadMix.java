@@ -0,0 +1,79 @@
+package br.com.lucena.incident.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+// Proporção de cada operação no tráfego, no formato "create=10,getById=50,latest=15,...".
+// Os pesos são relativos: não precisam somar 100.
+record WorkloadMix(Map<Operation, Integer> weights) {
+
+    static final String DEFAULT = "create=10,getById=50,latest=15,statusList=15,statusTransition=10";
+
+    enum Operation {
+        CREATE("create"),
+        GET_BY_ID("getById"),
+        LATEST("latest"),
+        STATUS_LIST("statusList"),
+        STATUS_TRANSITION("statusTransition");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        String key() {
+            return key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + key + "', expected one of create, getById, "
+                    + "latest, statusList, statusTransition");
+        }
+    }
+
+    static WorkloadMix parse(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight, got '" + entry + "'");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + pair[0]);
+            }
+            weights.merge(Operation.of(pair[0].trim()), weight, Integer::sum);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Workload mix has no operations: " + spec);
+        }
+        return new WorkloadMix(weights);
+    }
+
+    Operation pick(RandomGenerator random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int draw = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        weights.forEach((operation, weight) -> spec.append(spec.isEmpty() ? "" : ",")
+                .append(operation.key()).append('=').append(weight));
+        return spec.toString();
+    }
+}